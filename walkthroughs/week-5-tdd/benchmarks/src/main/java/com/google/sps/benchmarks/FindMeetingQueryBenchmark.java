@@ -0,0 +1,114 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.CalendarIndex;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code FindMeetingQuery.query} on synthetic calendars. Throughput and latency
+ * percentiles are reported directly; run with {@code -prof gc} to also see the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindMeetingQueryBenchmark {
+  /** The shape of the request being measured. */
+  public enum Scenario {
+    /** Only required attendees. */
+    MANDATORY_ONLY,
+    /** A few required attendees and many optional ones. */
+    OPTIONAL_HEAVY,
+    /** Required attendees, but nobody has any events. */
+    EMPTY_CALENDAR
+  }
+
+  @Param({"MANDATORY_ONLY", "OPTIONAL_HEAVY", "EMPTY_CALENDAR"})
+  public Scenario scenario;
+
+  @Param({"SWEEP", "BITMAP"})
+  public FindMeetingQuery.Engine engine;
+
+  @Param({"1000"})
+  public int people;
+
+  @Param({"8"})
+  public int eventsPerPerson;
+
+  @Param({"3"})
+  public int attendees;
+
+  @Param({"20"})
+  public int optionalAttendees;
+
+  @Param({"15"})
+  public int minEventDuration;
+
+  @Param({"90"})
+  public int maxEventDuration;
+
+  @Param({"30"})
+  public int meetingDuration;
+
+  private List<Event> events;
+  private CalendarIndex calendar;
+  private MeetingRequest request;
+  private FindMeetingQuery query;
+
+  @Setup
+  public void setUp() {
+    SyntheticCalendar generated =
+        new SyntheticCalendar(42, people, eventsPerPerson, minEventDuration, maxEventDuration);
+    events = scenario == Scenario.EMPTY_CALENDAR
+        ? Collections.<Event>emptyList() : generated.getEvents();
+    calendar = CalendarIndex.of(events);
+    request = generated.newRequest(
+        attendees, scenario == Scenario.OPTIONAL_HEAVY ? optionalAttendees : 0, meetingDuration);
+    query = new FindMeetingQuery(engine);
+  }
+
+  /** A query against the raw events, which indexes them on every call. */
+  @Benchmark
+  public Collection<TimeRange> queryEvents() {
+    return query.query(events, request);
+  }
+
+  /** A query against a calendar that was indexed once up front. */
+  @Benchmark
+  public Collection<TimeRange> queryIndex() {
+    return query.query(calendar, request);
+  }
+}
@@ -0,0 +1,97 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.CalendarIndex;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.Horizon;
+import com.google.sps.MeetingOption;
+import com.google.sps.MeetingRequest;
+import com.google.sps.Resource;
+import com.google.sps.ResourcePool;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code FindMeetingQuery.queryWithResources} picking a room out of a large pool, on the
+ * calling thread and spread over the common fork-join pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceSearchBenchmark {
+  @Param({"200"})
+  public int rooms;
+
+  @Param({"6"})
+  public int bookingsPerRoom;
+
+  @Param({"true", "false"})
+  public boolean parallel;
+
+  private CalendarIndex calendar;
+  private MeetingRequest request;
+  private FindMeetingQuery query;
+
+  @Setup
+  public void setUp() {
+    SyntheticCalendar generated = new SyntheticCalendar(42, 1000, 8, 15, 90);
+    List<Event> events = new ArrayList<>(generated.getEvents());
+
+    Random random = new Random(42);
+    List<Resource> pool = new ArrayList<>();
+    for (int i = 0; i < rooms; i++) {
+      Resource room = new Resource("Room " + i, 2 + random.nextInt(20));
+      pool.add(room);
+      for (int j = 0; j < bookingsPerRoom; j++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration() - 120);
+        events.add(new Event(room.getName() + " booking " + j,
+            TimeRange.fromStartDuration(start, 30 + random.nextInt(90)), Arrays.asList(room.getName())));
+      }
+    }
+
+    calendar = CalendarIndex.of(events);
+    request = generated.newRequest(3, 5, 30);
+    request.addResourcePool(new ResourcePool("Rooms", pool), 8);
+    query = new FindMeetingQuery();
+  }
+
+  @Benchmark
+  public List<MeetingOption> queryWithResources() {
+    return query.queryWithResources(calendar, request, Horizon.WHOLE_DAY,
+        parallel ? ForkJoinPool.commonPool() : null);
+  }
+}
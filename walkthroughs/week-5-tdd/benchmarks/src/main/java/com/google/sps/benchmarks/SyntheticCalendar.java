@@ -0,0 +1,102 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a random but reproducible company calendar: a number of people, each attending a number
+ * of events of random length during the day. Some events are shared by several people, like real
+ * meetings are.
+ */
+public final class SyntheticCalendar {
+  // The most people that share a single generated event.
+  private static final int MAX_ATTENDEES_PER_EVENT = 4;
+
+  private final Random random;
+  private final List<String> people = new ArrayList<>();
+  private final List<Event> events = new ArrayList<>();
+
+  /**
+   * Creates a calendar.
+   *
+   * @param seed The seed for the random generator. The same seed gives the same calendar.
+   * @param people The number of people in the company.
+   * @param eventsPerPerson The number of events each person attends, on average.
+   * @param minDuration The shortest event, in minutes.
+   * @param maxDuration The longest event, in minutes.
+   */
+  public SyntheticCalendar(long seed, int people, int eventsPerPerson, int minDuration, int maxDuration) {
+    if (people <= 0) {
+      throw new IllegalArgumentException("people must be positive");
+    }
+
+    if (minDuration <= 0 || maxDuration < minDuration) {
+      throw new IllegalArgumentException("durations must be positive and minDuration <= maxDuration");
+    }
+
+    this.random = new Random(seed);
+    for (int i = 0; i < people; i++) {
+      this.people.add("Person " + i);
+    }
+
+    // Each event has (1 + MAX_ATTENDEES_PER_EVENT) / 2 attendees on average.
+    int eventCount = people * eventsPerPerson * 2 / (1 + MAX_ATTENDEES_PER_EVENT);
+    for (int i = 0; i < eventCount; i++) {
+      int duration = minDuration + random.nextInt(maxDuration - minDuration + 1);
+      int start = random.nextInt(Math.max(1, TimeRange.WHOLE_DAY.duration() - duration));
+      int attendees = 1 + random.nextInt(MAX_ATTENDEES_PER_EVENT);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration), pick(attendees)));
+    }
+  }
+
+  /**
+   * Returns the generated events.
+   */
+  public List<Event> getEvents() {
+    return Collections.unmodifiableList(events);
+  }
+
+  /**
+   * Returns a request for a meeting between randomly chosen people.
+   *
+   * @param attendees The number of required attendees.
+   * @param optionalAttendees The number of optional attendees.
+   * @param duration The length of the meeting in minutes.
+   */
+  public MeetingRequest newRequest(int attendees, int optionalAttendees, int duration) {
+    List<String> chosen = pick(attendees + optionalAttendees);
+    MeetingRequest request = new MeetingRequest(chosen.subList(0, attendees), duration);
+    for (String person : chosen.subList(attendees, chosen.size())) {
+      request.addOptionalAttendee(person);
+    }
+    return request;
+  }
+
+  /**
+   * Returns {@code count} distinct people, or everyone if there are not that many.
+   */
+  private List<String> pick(int count) {
+    List<String> shuffled = new ArrayList<>(people);
+    Collections.shuffle(shuffled, random);
+    return new ArrayList<>(shuffled.subList(0, Math.min(count, shuffled.size())));
+  }
+}
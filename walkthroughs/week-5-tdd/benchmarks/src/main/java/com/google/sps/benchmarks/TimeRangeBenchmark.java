@@ -0,0 +1,80 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.TimeRange;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the pairwise {@code TimeRange} checks that callers scan calendars with.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeRangeBenchmark {
+  @Param({"1024"})
+  public int ranges;
+
+  private TimeRange[] left;
+  private TimeRange[] right;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    left = new TimeRange[ranges];
+    right = new TimeRange[ranges];
+    for (int i = 0; i < ranges; i++) {
+      left[i] = TimeRange.fromStartDuration(random.nextInt(1440), random.nextInt(120));
+      right[i] = TimeRange.fromStartDuration(random.nextInt(1440), random.nextInt(120));
+    }
+  }
+
+  @Benchmark
+  public int overlaps() {
+    int count = 0;
+    for (int i = 0; i < ranges; i++) {
+      if (left[i].overlaps(right[i])) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int contains() {
+    int count = 0;
+    for (int i = 0; i < ranges; i++) {
+      if (left[i].contains(right[i])) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,240 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the meeting times that let the most optional attendees join, given the openings where every
+ * mandatory attendee is already free. Optional attendees are counted by their weight, so one who
+ * matters more can outweigh several who matter less.
+ *
+ * <p>Each opening and each free gap of an optional attendee is turned into the interval of start
+ * times at which a meeting of the requested length fits inside it. Sorting the endpoints of those
+ * intervals and sweeping over them yields, for every possible start time, the total weight of the
+ * optional attendees who could join. This takes O(n log n) for n busy ranges, where enumerating subsets of the
+ * optional attendees would take O(2^n). All the work happens in the buffers of a {@code
+ * QueryContext}, so only the returned list is allocated.
+ */
+final class AttendanceSweep {
+  private AttendanceSweep() {}
+
+  /**
+   * Returns the ranges in which a meeting of {@code duration} minutes can start and end while every
+   * mandatory attendee and the heaviest possible set of optional attendees are free. Any meeting placed
+   * entirely within one of the returned ranges reaches that maximum.
+   *
+   * @param calendar The calendar the optional attendees' busy times are read from.
+   * @param context Holds the openings when every mandatory attendee is free, sorted and not
+   *     overlapping, and the ids of the optional attendees.
+   * @param duration The length of the meeting in minutes.
+   * @param requireEveryone If {@code true}, only times when every optional attendee can join are
+   *     returned, and no times at all if there are none.
+   */
+  static List<TimeRange> bestRanges(
+      BusySchedule calendar, QueryContext context, int duration, boolean requireEveryone) {
+    int best = sweepRuns(calendar, context, duration);
+    return ranges(context, best, requireEveryone ? context.consideredWeight() : 0, duration);
+  }
+
+  /**
+   * Fills the context's runs with every stretch of start times at which a meeting of {@code
+   * duration} minutes fits in an opening, together with the total weight of the optional attendees
+   * who could join it. Returns the best total, or -1 if no time works.
+   *
+   * <p>If the context's deadline passes, the optional attendees not looked at yet are left out and
+   * the context is marked partial. The runs then only account for the ones looked at, which may be
+   * none.
+   */
+  static int sweepRuns(BusySchedule calendar, QueryContext context, int duration) {
+    context.runCount = 0;
+    if (context.openCount == 0) {
+      return -1;
+    }
+
+    int spanStart = context.openStart[0];
+    int spanEnd = context.openEnd[context.openCount - 1];
+
+    context.endpointCount = 0;
+    for (int i = 0; i < context.openCount; i++) {
+      addStarts(context, context.openStart[i], context.openEnd[i], duration, 0);
+    }
+
+    RangeBuffer busy = context.personBusy;
+    for (int person = 0; person < context.optionalCount; person++) {
+      // Reading the clock costs next to nothing beside a calendar lookup.
+      if (context.pastDeadline()) {
+        context.optionalConsidered = person;
+        context.partial = true;
+        break;
+      }
+      busy.clear();
+      calendar.collectBusyTimes(context.optionalIds[person], spanStart, spanEnd, busy);
+      // The time outside working hours is shared by everyone with the same hours and compiled for
+      // the whole horizon, so only the part that overlaps the openings is walked.
+      WorkingHours hours = context.workingHoursOf(context.optionalIds[person]);
+      RangeBuffer offHours = null;
+      int j = 0;
+      int offHoursEnd = 0;
+      if (hours != null) {
+        offHours = hours.offHours(context.spanStart, context.spanEnd);
+        j = firstEndingAfter(offHours, spanStart);
+        offHoursEnd = j;
+        while (offHoursEnd < offHours.size() && offHours.start(offHoursEnd) < spanEnd) {
+          offHoursEnd++;
+        }
+      }
+
+      // Walk the busy times and the time outside working hours together, both sorted by start.
+      int free = spanStart;
+      int i = 0;
+      while (i < busy.size() || j < offHoursEnd) {
+        int start;
+        int end;
+        if (j == offHoursEnd || (i < busy.size() && busy.start(i) <= offHours.start(j))) {
+          start = busy.start(i);
+          end = busy.end(i++);
+        } else {
+          start = offHours.start(j);
+          end = offHours.end(j++);
+        }
+        if (start > free) {
+          addStarts(context, free, Math.min(start, spanEnd), duration, person + 1);
+        }
+        free = Math.max(free, end);
+      }
+      addStarts(context, free, spanEnd, duration, person + 1);
+    }
+
+    Arrays.sort(context.endpoints, 0, context.endpointCount);
+    return sweep(context);
+  }
+
+  /**
+   * Returns the index of the first range in {@code ranges}, which are sorted and don't overlap,
+   * that ends after {@code point}.
+   */
+  private static int firstEndingAfter(RangeBuffer ranges, int point) {
+    int low = 0;
+    int high = ranges.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (ranges.end(middle) > point) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Walks the sorted endpoints, tracking whether the mandatory attendees are free and the weight of
+   * the optional attendees who are free, and records every stretch of start times with a constant
+   * weight. Returns the best weight, or -1 if no time works.
+   */
+  private static int sweep(QueryContext context) {
+    long[] endpoints = context.endpoints;
+    int count = context.endpointCount;
+    context.runCount = 0;
+
+    int openings = 0;
+    int free = 0;
+    int best = -1;
+    int i = 0;
+    while (i < count) {
+      int position = position(endpoints[i]);
+      while (i < count && position(endpoints[i]) == position) {
+        int delta = isOpening(endpoints[i]) ? 1 : -1;
+        int person = person(endpoints[i]);
+        if (person == 0) {
+          openings += delta;
+        } else {
+          free += delta * context.optionalWeights[person - 1];
+        }
+        i++;
+      }
+
+      if (i < count && openings > 0) {
+        context.addRun(position, position(endpoints[i]), free);
+        best = Math.max(best, free);
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns the ranges covered by consecutive runs that reach {@code best}.
+   */
+  private static List<TimeRange> ranges(QueryContext context, int best, int minimum, int duration) {
+    List<TimeRange> ranges = new ArrayList<>();
+    if (best < minimum) {
+      return ranges;
+    }
+
+    int r = 0;
+    while (r < context.runCount) {
+      if (context.runScore[r] != best) {
+        r++;
+        continue;
+      }
+      int start = context.runStart[r];
+      int end = context.runEnd[r];
+      while (r + 1 < context.runCount && context.runScore[r + 1] == best
+          && context.runStart[r + 1] == end) {
+        r++;
+        end = context.runEnd[r];
+      }
+      // The run holds the start times [start, end), so the last meeting ends at end - 1 + duration.
+      ranges.add(TimeRange.fromStartEnd(start, end - 1 + duration, false));
+      r++;
+    }
+    return ranges;
+  }
+
+  /**
+   * Records the start times at which a meeting of {@code duration} fits within [start, end) as an
+   * opening and a closing endpoint.
+   */
+  private static void addStarts(QueryContext context, int start, int end, int duration, int person) {
+    if (end - start < duration) {
+      return;
+    }
+    context.addEndpoint(encode(start, person, true));
+    context.addEndpoint(encode(end - duration + 1, person, false));
+  }
+
+  /**
+   * Packs an endpoint into a long that sorts by position first. Person 0 stands for the mandatory
+   * openings.
+   */
+  private static long encode(int position, int person, boolean opening) {
+    return ((long) position << 32) | ((long) person << 1) | (opening ? 1 : 0);
+  }
+
+  private static int position(long endpoint) {
+    return (int) (endpoint >> 32);
+  }
+
+  private static int person(long endpoint) {
+    return (int) (endpoint & 0xFFFFFFFFL) >>> 1;
+  }
+
+  private static boolean isOpening(long endpoint) {
+    return (endpoint & 1) == 1;
+  }
+}
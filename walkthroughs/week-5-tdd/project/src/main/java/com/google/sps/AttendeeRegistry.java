@@ -0,0 +1,98 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns every attendee name a small, dense integer id so the meeting engine can compare and index
+ * people with integer operations instead of hashing their names over and over. Ids are handed out
+ * in order starting at 0 and never change. The registry is safe to use from multiple threads.
+ *
+ * <p>Because ids never change, they are never reclaimed either: the registry keeps every name that
+ * was ever interned, including those of events that have since been removed, until the process
+ * exits. This is an accepted limit. It costs one map entry per distinct name, and the indexes built
+ * from a calendar are sized by that calendar's own attendees rather than by the registry. Names
+ * from untrusted requests should go through {@link #lookup}, which never adds them.
+ */
+public final class AttendeeRegistry {
+  /** The id returned by {@link #lookup} for a name that has never been interned. */
+  public static final int UNKNOWN = -1;
+
+  private static final AttendeeRegistry SHARED = new AttendeeRegistry();
+
+  private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+  private volatile String[] names = new String[16];
+  private volatile int size;
+
+  /**
+   * Returns the registry used by {@link Event}, {@link MeetingRequest} and {@link CalendarIndex}.
+   */
+  public static AttendeeRegistry shared() {
+    return SHARED;
+  }
+
+  /**
+   * Returns the id for {@code name}, assigning the next free id if the name is new.
+   */
+  public int intern(String name) {
+    Integer id = ids.get(name);
+    return id != null ? id : add(name);
+  }
+
+  /**
+   * Returns the id for {@code name}, or {@link #UNKNOWN} if it was never interned. Unlike {@link
+   * #intern}, this never grows the registry, so it is safe to call with untrusted names.
+   */
+  public int lookup(String name) {
+    Integer id = ids.get(name);
+    return id != null ? id : UNKNOWN;
+  }
+
+  /**
+   * Returns the name that was interned as {@code id}.
+   */
+  public String nameOf(int id) {
+    if (id < 0 || id >= size) {
+      throw new IllegalArgumentException("unknown attendee id: " + id);
+    }
+    return names[id];
+  }
+
+  /**
+   * Returns the number of interned names. Every id is less than this.
+   */
+  public int size() {
+    return size;
+  }
+
+  private synchronized int add(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+
+    int next = size;
+    if (next == names.length) {
+      names = Arrays.copyOf(names, next * 2);
+    }
+    names[next] = name;
+    // Publish the name before the id so readers that see the id can always resolve it.
+    size = next + 1;
+    ids.put(name, next);
+    return next;
+  }
+}
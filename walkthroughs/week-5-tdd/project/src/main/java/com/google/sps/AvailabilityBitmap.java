@@ -0,0 +1,277 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+/**
+ * Tracks which slots of a span of time are busy with one bit per slot, packed 64 to a {@code long}.
+ * A whole day of one-minute slots fits in 23 words, so marking a busy range and searching for free
+ * time work on whole words instead of probing minute by minute.
+ *
+ * <p>Runs of at least k free slots are found by eroding the free bits: after {@code free &= free
+ * >>> s} for shifts s that add up to k - 1, a bit is still set only if the k slots starting there
+ * are all free. Doubling the shift each time takes O(log k) passes over the words, and short gaps
+ * vanish before the bitmap is scanned for runs.
+ *
+ * <p>An empty busy range is a point that a meeting may end or start at but not span. A point inside a
+ * slot blocks the slot, and one on a slot boundary is kept as a break that splits the free stretch
+ * around it.
+ *
+ * <p>A bitmap can be reset and reused for any number of spans without allocating once its words
+ * have grown to fit. Bitmaps are not thread-safe.
+ */
+public final class AvailabilityBitmap {
+  /**
+   * The length of a slot. With slots longer than a minute, a slot is busy if any minute in it is
+   * busy, so free time is rounded inward to slot boundaries.
+   */
+  public enum Granularity {
+    ONE_MINUTE(1),
+    FIVE_MINUTES(5),
+    FIFTEEN_MINUTES(15);
+
+    private final int minutes;
+
+    Granularity(int minutes) {
+      this.minutes = minutes;
+    }
+
+    /**
+     * Returns the length of a slot in minutes.
+     */
+    public int getMinutes() {
+      return minutes;
+    }
+  }
+
+  private long[] busy = new long[32];
+  private long[] runs = new long[32];
+  private int spanStart;
+  private int spanEnd;
+  private int slotMinutes = 1;
+  private int base;
+  private int slots;
+  private int[] breaks = new int[8];
+  private int breakCount;
+
+  /**
+   * Clears the bitmap and makes it cover [{@code spanStart}, {@code spanEnd}). Slots are aligned to
+   * multiples of the slot length, and slots that reach outside the span are marked busy.
+   */
+  public void reset(int spanStart, int spanEnd, Granularity granularity) {
+    if (spanEnd <= spanStart) {
+      throw new IllegalArgumentException("span cannot be empty");
+    }
+
+    this.spanStart = spanStart;
+    this.spanEnd = spanEnd;
+    this.slotMinutes = granularity.getMinutes();
+    this.base = Math.floorDiv(spanStart, slotMinutes) * slotMinutes;
+    this.slots = (spanEnd - base + slotMinutes - 1) / slotMinutes;
+
+    int words = wordCount();
+    if (busy.length < words) {
+      busy = new long[Math.max(words, busy.length * 2)];
+      runs = new long[busy.length];
+    } else {
+      Arrays.fill(busy, 0, words, 0L);
+    }
+    breakCount = 0;
+    setSlots(0, slot(spanStart, true));
+    setSlots(slot(spanEnd, false), slots);
+  }
+
+  /**
+   * Marks every slot that overlaps [{@code start}, {@code end}) as busy. Minutes outside the span
+   * are ignored. If the range is empty and strictly inside the span, free time is split there.
+   */
+  public void markBusy(int start, int end) {
+    if (start == end && start > spanStart && start < spanEnd) {
+      if ((start - base) % slotMinutes != 0) {
+        setSlots(slot(start, false), slot(start, true));
+      } else {
+        if (breakCount == breaks.length) {
+          breaks = Arrays.copyOf(breaks, breakCount * 2);
+        }
+        breaks[breakCount++] = start;
+      }
+      return;
+    }
+    start = Math.max(start, spanStart);
+    end = Math.min(end, spanEnd);
+    if (start < end) {
+      setSlots(slot(start, false), slot(end, true));
+    }
+  }
+
+  /**
+   * Marks every slot that is busy in {@code mask} as busy, a whole word at a time. The mask must
+   * come from {@link #getBusyWords} of a bitmap reset to the same span and granularity.
+   */
+  void markBusy(long[] mask) {
+    int words = wordCount();
+    if (mask.length != words) {
+      throw new IllegalArgumentException("mask covers a different span");
+    }
+    for (int w = 0; w < words; w++) {
+      busy[w] |= mask[w];
+    }
+  }
+
+  /**
+   * Returns a copy of the busy slots, one bit per slot.
+   */
+  long[] getBusyWords() {
+    return Arrays.copyOf(busy, wordCount());
+  }
+
+  /**
+   * Appends every maximal stretch of free slots at least {@code minMinutes} long to {@code out}, in
+   * minutes and sorted by start time.
+   */
+  public void findFree(int minMinutes, RangeBuffer out) {
+    int words = wordCount();
+    for (int w = 0; w < words; w++) {
+      runs[w] = ~busy[w];
+    }
+    if ((slots & 63) != 0) {
+      runs[words - 1] &= -1L >>> -slots;
+    }
+
+    // A stretch of minMinutes needs this many whole slots.
+    int length = Math.max((minMinutes + slotMinutes - 1) / slotMinutes, 1);
+    int eroded = 1;
+    while (eroded < length) {
+      int shift = Math.min(eroded, length - eroded);
+      erode(runs, words, shift);
+      eroded += shift;
+    }
+
+    // Every run of surviving bits [first, last) marks the starts of a free stretch that ends
+    // length - 1 slots after last. Breaks can only shorten stretches, so any piece long enough is
+    // inside one of these.
+    Arrays.sort(breaks, 0, breakCount);
+    int nextBreak = 0;
+    int first = nextSetBit(runs, 0, slots);
+    while (first < slots) {
+      int last = nextClearBit(runs, first, slots);
+      int start = base + first * slotMinutes;
+      int end = base + (last + length - 1) * slotMinutes;
+      for (; nextBreak < breakCount && breaks[nextBreak] < end; nextBreak++) {
+        if (breaks[nextBreak] - start >= length * slotMinutes) {
+          out.add(start, breaks[nextBreak]);
+        }
+        start = Math.max(start, breaks[nextBreak]);
+      }
+      if (end - start >= length * slotMinutes) {
+        out.add(start, end);
+      }
+      first = nextSetBit(runs, last, slots);
+    }
+  }
+
+  /**
+   * Returns the number of slots covering the span.
+   */
+  public int getSlotCount() {
+    return slots;
+  }
+
+  private int wordCount() {
+    return (slots + 63) >>> 6;
+  }
+
+  /**
+   * Returns the slot holding {@code minute}, or the first slot starting at or after it if {@code
+   * roundUp} is set.
+   */
+  private int slot(int minute, boolean roundUp) {
+    int offset = minute - base;
+    return roundUp ? (offset + slotMinutes - 1) / slotMinutes : offset / slotMinutes;
+  }
+
+  /**
+   * Marks slots [from, to) as busy, a whole word at a time.
+   */
+  private void setSlots(int from, int to) {
+    if (from >= to) {
+      return;
+    }
+    int first = from >>> 6;
+    int last = (to - 1) >>> 6;
+    long firstMask = -1L << from;
+    long lastMask = -1L >>> -to;
+    if (first == last) {
+      busy[first] |= firstMask & lastMask;
+      return;
+    }
+    busy[first] |= firstMask;
+    for (int i = first + 1; i < last; i++) {
+      busy[i] = -1L;
+    }
+    busy[last] |= lastMask;
+  }
+
+  /**
+   * Clears every bit of {@code bits} that is not followed by a set bit {@code shift} places later.
+   * Bits past the end count as clear. Reading ahead of the word being written keeps this in place.
+   */
+  private static void erode(long[] bits, int words, int shift) {
+    int wordShift = shift >>> 6;
+    int bitShift = shift & 63;
+    for (int w = 0; w < words; w++) {
+      long low = w + wordShift < words ? bits[w + wordShift] : 0L;
+      long high = w + wordShift + 1 < words ? bits[w + wordShift + 1] : 0L;
+      bits[w] &= bitShift == 0 ? low : (low >>> bitShift) | (high << -bitShift);
+    }
+  }
+
+  /**
+   * Returns the first set bit at or after {@code from}, or {@code size} if there is none.
+   */
+  private static int nextSetBit(long[] words, int from, int size) {
+    if (from >= size) {
+      return size;
+    }
+    int i = from >>> 6;
+    long word = words[i] & (-1L << from);
+    while (word == 0) {
+      if (++i << 6 >= size) {
+        return size;
+      }
+      word = words[i];
+    }
+    return Math.min((i << 6) + Long.numberOfTrailingZeros(word), size);
+  }
+
+  /**
+   * Returns the first clear bit at or after {@code from}, or {@code size} if there is none.
+   */
+  private static int nextClearBit(long[] words, int from, int size) {
+    if (from >= size) {
+      return size;
+    }
+    int i = from >>> 6;
+    long word = ~words[i] & (-1L << from);
+    while (word == 0) {
+      if (++i << 6 >= size) {
+        return size;
+      }
+      word = ~words[i];
+    }
+    return Math.min((i << 6) + Long.numberOfTrailingZeros(word), size);
+  }
+}
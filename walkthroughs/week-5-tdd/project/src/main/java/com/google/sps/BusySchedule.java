@@ -0,0 +1,34 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Something that knows when people are busy, such as a {@code CalendarIndex} built from a fixed set
+ * of events or an {@code IncrementalCalendar} that changes over time. {@code FindMeetingQuery} reads
+ * all of its calendars through this interface.
+ */
+public interface BusySchedule {
+  /**
+   * Appends the times the person with id {@code attendeeId} in the shared {@code AttendeeRegistry}
+   * is busy that overlap [{@code from}, {@code to}) to {@code out}. Ranges are appended sorted by
+   * start time, with overlapping and back-to-back ranges merged. They are not clipped to the
+   * requested span. Unknown ids, including {@code AttendeeRegistry.UNKNOWN}, are never busy.
+   *
+   * <p>An event that takes no time is a point: it blocks any meeting that spans it, but not one that
+   * starts or ends there. A point strictly between {@code from} and {@code to} that isn't within or
+   * at the edge of a busy range is appended as an empty range.
+   */
+  void collectBusyTimes(int attendeeId, int from, int to, RangeBuffer out);
+}
@@ -0,0 +1,205 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An inverted index from each person to the times they are busy, built once from a collection of
+ * events. People are looked up by their id in the shared {@code AttendeeRegistry}, with a binary
+ * search over the ids of the people in the events, so an index only takes space for the people it
+ * holds and finding a person's calendar costs O(log p) for p people, no matter how many events they
+ * have. A meeting query only pays for the calendars of the people it asks about. Indexes are
+ * read-only.
+ */
+public final class CalendarIndex implements BusySchedule {
+  // The registry ids of everyone in the events, sorted. Their calendars are at the same positions.
+  private final int[] ids;
+  // The start and end of each merged busy range, sorted by start time. Plain int arrays keep a range
+  // down to 8 bytes and let queries walk them without allocating.
+  private final int[][] busyStarts;
+  private final int[][] busyEnds;
+  private final int eventCount;
+
+  private CalendarIndex(int[] ids, int[][] busyStarts, int[][] busyEnds, int eventCount) {
+    this.ids = ids;
+    this.busyStarts = busyStarts;
+    this.busyEnds = busyEnds;
+    this.eventCount = eventCount;
+  }
+
+  /**
+   * Builds an index over {@code events}.
+   *
+   * @param events The events to index. Must be non-null.
+   */
+  public static CalendarIndex of(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    Map<Integer, List<TimeRange>> busyTimes = new HashMap<>();
+    for (Event event : events) {
+      for (int person : event.getAttendeeIds()) {
+        List<TimeRange> times = busyTimes.get(person);
+        if (times == null) {
+          times = new ArrayList<>();
+          busyTimes.put(person, times);
+        }
+        times.add(event.getWhen());
+      }
+    }
+
+    int[] ids = new int[busyTimes.size()];
+    int people = 0;
+    for (int id : busyTimes.keySet()) {
+      ids[people++] = id;
+    }
+    Arrays.sort(ids);
+
+    int[][] busyStarts = new int[people][];
+    int[][] busyEnds = new int[people][];
+    for (int person = 0; person < people; person++) {
+      List<TimeRange> merged = merge(busyTimes.get(ids[person]));
+      busyStarts[person] = new int[merged.size()];
+      busyEnds[person] = new int[merged.size()];
+      for (int i = 0; i < merged.size(); i++) {
+        busyStarts[person][i] = merged.get(i).start();
+        busyEnds[person][i] = merged.get(i).end();
+      }
+    }
+    return new CalendarIndex(ids, busyStarts, busyEnds, events.size());
+  }
+
+  /**
+   * Returns the times {@code person} is busy, sorted by start time. Overlapping and back-to-back
+   * events are merged into a single range.
+   */
+  public List<TimeRange> getBusyTimes(String person) {
+    return getBusyTimes(AttendeeRegistry.shared().lookup(person));
+  }
+
+  /**
+   * Returns the times the person with id {@code attendeeId} in the shared {@code AttendeeRegistry}
+   * is busy, sorted by start time.
+   */
+  public List<TimeRange> getBusyTimes(int attendeeId) {
+    int person = indexOf(attendeeId);
+    if (person < 0) {
+      return new ArrayList<>();
+    }
+    return toList(person, 0, busyStarts[person].length);
+  }
+
+  /**
+   * Returns the times the person with id {@code attendeeId} is busy that overlap {@code span},
+   * sorted by start time. The first range is found with a binary search, so narrowing a long
+   * calendar down to a short horizon only costs O(log n) on top of the ranges returned.
+   */
+  public List<TimeRange> getBusyTimes(int attendeeId, TimeRange span) {
+    int person = indexOf(attendeeId);
+    if (person < 0) {
+      return new ArrayList<>();
+    }
+    int from = firstBusyEndingAfter(person, span.start());
+    int to = from;
+    while (to < busyStarts[person].length && busyStarts[person][to] < span.end()) {
+      to++;
+    }
+    return toList(person, from, to);
+  }
+
+  @Override
+  public void collectBusyTimes(int attendeeId, int from, int to, RangeBuffer out) {
+    int person = indexOf(attendeeId);
+    if (person < 0) {
+      return;
+    }
+    int[] starts = busyStarts[person];
+    int[] ends = busyEnds[person];
+    for (int i = firstBusyEndingAfter(person, from); i < starts.length; i++) {
+      if (starts[i] >= to) {
+        break;
+      }
+      out.add(starts[i], ends[i]);
+    }
+  }
+
+  /**
+   * Returns the number of events this index was built from.
+   */
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Returns the position of the calendar of the person with id {@code attendeeId}, or -1 if they
+   * are in none of the events.
+   */
+  private int indexOf(int attendeeId) {
+    int person = Arrays.binarySearch(ids, attendeeId);
+    return person < 0 ? -1 : person;
+  }
+
+  /**
+   * Returns the index of the first busy range of the person at {@code person} that ends after
+   * {@code point}. Merged ranges never overlap, so their ends are sorted just like their starts.
+   */
+  private int firstBusyEndingAfter(int person, int point) {
+    int[] ends = busyEnds[person];
+    int low = 0;
+    int high = ends.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (ends[middle] > point) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+
+  private List<TimeRange> toList(int person, int from, int to) {
+    List<TimeRange> times = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      times.add(TimeRange.fromStartEnd(busyStarts[person][i], busyEnds[person][i], false));
+    }
+    return times;
+  }
+
+  private static List<TimeRange> merge(List<TimeRange> times) {
+    Collections.sort(times, TimeRange.ORDER_BY_START);
+
+    List<TimeRange> merged = new ArrayList<>(times.size());
+    int start = times.get(0).start();
+    int end = times.get(0).end();
+    for (TimeRange time : times) {
+      if (time.start() > end) {
+        merged.add(TimeRange.fromStartEnd(start, end, false));
+        start = time.start();
+      }
+      end = Math.max(end, time.end());
+    }
+    merged.add(TimeRange.fromStartEnd(start, end, false));
+    return merged;
+  }
+}
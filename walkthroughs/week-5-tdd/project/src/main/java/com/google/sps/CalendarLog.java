@@ -0,0 +1,648 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps an {@code IncrementalCalendar} durable by writing every change to an append-only log before
+ * reporting it done, so the calendar can be rebuilt after a restart or a crash.
+ *
+ * <p>Each record is framed by its length and a CRC32 of its contents. A record cut short by a crash
+ * fails its check and is dropped, along with anything after it, when the log is next opened.
+ * Changes are queued for the log in the order they arrive. One caller at a time writes and syncs
+ * everything queued so far and only then applies it to the calendar, so nobody sees a change that
+ * could still be lost, and callers that arrive during an fsync share the next one instead of paying
+ * for one each. If the write fails it is undone and every change in that batch fails.
+ *
+ * <p>The directory holds generations of files. {@code snapshot-N} is every event in the calendar
+ * when {@code wal-N} was started, and {@code wal-N} holds the changes since. Once a log has grown
+ * past a threshold it is compacted in the background: a new log is started, the events are written to the matching
+ * snapshot, and older files are deleted once the snapshot is safely on disk. Opening the log loads
+ * the newest complete snapshot and replays the logs from that generation on, adding events in
+ * batches.
+ *
+ * <p>Every change to the calendar must go through the log. The log is safe to use from multiple
+ * threads.
+ */
+public final class CalendarLog implements Closeable {
+  /** Logs are compacted once they grow past this many bytes, unless told otherwise. */
+  public static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+
+  private static final int MAGIC = 0x43414c4c;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 8;
+  private static final int FRAME_BYTES = 8;
+
+  private static final byte ADD = 1;
+  private static final byte REMOVE = 2;
+
+  private static final String SNAPSHOT = "snapshot-";
+  private static final String WAL = "wal-";
+  private static final String TEMPORARY = ".tmp";
+
+  private final Path directory;
+  private final IncrementalCalendar calendar;
+  private final long compactionThreshold;
+  private final long recoveredRecords;
+  private final boolean isNew;
+
+  // Orders changes: queuing a record and its change happen together, in the order they will be
+  // written and applied.
+  private final Object appendLock = new Object();
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private final List<Change> queued = new ArrayList<>();
+  private FileChannel wal;
+  private long generation;
+
+  // Lets one caller at a time write, sync and apply what is queued. Guards the fields below.
+  private final Object syncLock = new Object();
+  private long walBytes;
+  private long syncCount;
+  // Set if a failed write could not be undone, after which nothing more can be appended safely.
+  private IOException broken;
+
+  private final AtomicBoolean compacting = new AtomicBoolean();
+  private final ExecutorService compactor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable task) {
+      Thread thread = new Thread(task, "calendar-log-compactor");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private CalendarLog(Path directory, IncrementalCalendar calendar, long compactionThreshold,
+      long recoveredRecords, boolean isNew, FileChannel wal, long generation) throws IOException {
+    this.directory = directory;
+    this.calendar = calendar;
+    this.compactionThreshold = compactionThreshold;
+    this.recoveredRecords = recoveredRecords;
+    this.isNew = isNew;
+    this.wal = wal;
+    this.generation = generation;
+    this.walBytes = wal.size();
+  }
+
+  /**
+   * Opens the log in {@code directory}, creating it if needed, and adds every event it holds to
+   * {@code calendar}, which should start out empty.
+   */
+  public static CalendarLog open(Path directory, IncrementalCalendar calendar) throws IOException {
+    return open(directory, calendar, DEFAULT_COMPACTION_THRESHOLD);
+  }
+
+  /**
+   * Opens the log in {@code directory}, compacting it in the background whenever it grows past
+   * {@code compactionThreshold} bytes.
+   */
+  public static CalendarLog open(Path directory, IncrementalCalendar calendar, long compactionThreshold)
+      throws IOException {
+    if (directory == null) {
+      throw new IllegalArgumentException("directory cannot be null");
+    }
+    if (calendar == null) {
+      throw new IllegalArgumentException("calendar cannot be null");
+    }
+    if (compactionThreshold <= 0) {
+      throw new IllegalArgumentException("compaction threshold must be positive");
+    }
+    Files.createDirectories(directory);
+
+    TreeSet<Long> snapshots = new TreeSet<>();
+    TreeSet<Long> wals = new TreeSet<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(TEMPORARY)) {
+          // A snapshot that was never finished.
+          Files.delete(file);
+        } else if (name.startsWith(SNAPSHOT)) {
+          snapshots.add(generationOf(name, SNAPSHOT));
+        } else if (name.startsWith(WAL)) {
+          wals.add(generationOf(name, WAL));
+        }
+      }
+    }
+    boolean isNew = snapshots.isEmpty() && wals.isEmpty();
+
+    long first = snapshots.isEmpty() ? (wals.isEmpty() ? 0 : wals.first()) : snapshots.last();
+    Replay replay = new Replay(calendar);
+    if (!snapshots.isEmpty()) {
+      replay.read(directory.resolve(SNAPSHOT + first), false);
+    }
+    long last = first;
+    for (long walGeneration : wals.tailSet(first)) {
+      // Only the newest log can have been cut short by a crash.
+      replay.read(directory.resolve(WAL + walGeneration), walGeneration == wals.last());
+      last = walGeneration;
+    }
+    replay.flush();
+
+    FileChannel channel = openWal(directory, last);
+    CalendarLog log =
+        new CalendarLog(directory, calendar, compactionThreshold, replay.records, isNew, channel, last);
+    log.deleteBefore(first);
+    return log;
+  }
+
+  /**
+   * Adds an event to the calendar once the change is on disk.
+   */
+  public void addEvent(Event event) throws IOException {
+    addEvents(Collections.singletonList(event));
+  }
+
+  /**
+   * Adds a batch of events to the calendar at once, after they are all on disk. If writing them
+   * fails, none of them are added.
+   */
+  public void addEvents(Collection<Event> batch) throws IOException {
+    for (Event event : batch) {
+      if (event == null) {
+        throw new IllegalArgumentException("events cannot be null");
+      }
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    Change change = new Change(ADD, new ArrayList<>(batch));
+    synchronized (appendLock) {
+      for (Event event : batch) {
+        writeRecord(pending, ADD, event);
+      }
+      queued.add(change);
+    }
+    sync(change);
+  }
+
+  /**
+   * Removes one copy of an event from the calendar once the change is on disk. Returns {@code
+   * false} if the calendar did not hold the event when the change was applied.
+   */
+  public boolean removeEvent(Event event) throws IOException {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+    Change change = new Change(REMOVE, Collections.singletonList(event));
+    synchronized (appendLock) {
+      writeRecord(pending, REMOVE, event);
+      queued.add(change);
+    }
+    sync(change);
+    return change.removed;
+  }
+
+  /**
+   * Starts a new log, writes every event to a snapshot and deletes the older files. Changes may
+   * keep coming in while the snapshot is written. Does nothing if a compaction is already running.
+   */
+  public void compact() throws IOException {
+    if (!compacting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      long next;
+      List<Event> events;
+      synchronized (syncLock) {
+        synchronized (appendLock) {
+          // The calendar holds exactly the changes already in the old log, and whatever is still
+          // queued will go to the new one.
+          next = generation + 1;
+          events = calendar.getEvents();
+          FileChannel old = wal;
+          wal = openWal(directory, next);
+          generation = next;
+          walBytes = wal.size();
+          old.close();
+        }
+      }
+
+      Path temporary = directory.resolve(SNAPSHOT + next + TEMPORARY);
+      try (FileChannel snapshot = FileChannel.open(temporary, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        writeHeader(buffer);
+        for (Event event : events) {
+          writeRecord(buffer, ADD, event);
+          if (buffer.size() >= 1 << 20) {
+            writeFully(snapshot, buffer.toByteArray());
+            buffer.reset();
+          }
+        }
+        writeFully(snapshot, buffer.toByteArray());
+        snapshot.force(false);
+      }
+      Files.move(temporary, directory.resolve(SNAPSHOT + next), StandardCopyOption.ATOMIC_MOVE);
+      syncDirectory(directory);
+      deleteBefore(next);
+    } finally {
+      compacting.set(false);
+    }
+  }
+
+  /**
+   * Returns {@code true} if the directory held no snapshot or log when the log was opened, so the
+   * calendar was not recovered from anything.
+   */
+  public boolean isNew() {
+    return isNew;
+  }
+
+  /**
+   * Returns the number of records read back when the log was opened.
+   */
+  public long getRecoveredRecordCount() {
+    return recoveredRecords;
+  }
+
+  /**
+   * Returns the number of fsyncs so far. With many concurrent writers this is well below the number
+   * of changes.
+   */
+  public long getSyncCount() {
+    synchronized (syncLock) {
+      return syncCount;
+    }
+  }
+
+  /**
+   * Returns the generation of the log being written to, which goes up with every compaction.
+   */
+  public long getGeneration() {
+    synchronized (appendLock) {
+      return generation;
+    }
+  }
+
+  /**
+   * Waits for a running compaction, writes and applies anything still queued and closes the log.
+   */
+  @Override
+  public void close() throws IOException {
+    compactor.shutdown();
+    try {
+      compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (syncLock) {
+      IOException failure = null;
+      try {
+        flushQueued();
+      } catch (IOException e) {
+        failure = e;
+      }
+      synchronized (appendLock) {
+        wal.close();
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+
+  /**
+   * Returns once {@code change} is on disk and applied to the calendar, writing, syncing and
+   * applying everything queued so far if no other caller already has.
+   */
+  private void sync(Change change) throws IOException {
+    boolean compact;
+    synchronized (syncLock) {
+      if (!change.settled) {
+        // Our change is still queued, so it is part of the batch this flushes.
+        try {
+          flushQueued();
+        } catch (IOException e) {
+          // Reported below, along with every other change in the batch.
+        }
+      }
+      compact = walBytes > compactionThreshold && compacting.compareAndSet(false, true);
+    }
+    if (compact) {
+      compactInBackground();
+    }
+    if (change.failure != null) {
+      throw new IOException("could not write to the calendar log", change.failure);
+    }
+  }
+
+  /**
+   * Writes and syncs every queued record, then applies their changes to the calendar in order. If
+   * the write fails, it is undone and every change in the batch fails instead. Must be called
+   * holding {@code syncLock}.
+   */
+  private void flushQueued() throws IOException {
+    List<Change> batch;
+    byte[] bytes;
+    FileChannel channel;
+    synchronized (appendLock) {
+      if (queued.isEmpty()) {
+        return;
+      }
+      batch = new ArrayList<>(queued);
+      queued.clear();
+      bytes = pending.toByteArray();
+      pending.reset();
+      channel = wal;
+    }
+
+    // Other callers keep queuing records while this batch is written.
+    long before = walBytes;
+    try {
+      if (broken != null) {
+        throw broken;
+      }
+      writeFully(channel, bytes);
+      channel.force(false);
+    } catch (IOException e) {
+      try {
+        channel.truncate(before);
+        channel.position(before);
+      } catch (IOException undo) {
+        broken = e;
+      }
+      for (Change change : batch) {
+        change.failure = e;
+        change.settled = true;
+      }
+      throw e;
+    }
+    walBytes += bytes.length;
+    syncCount++;
+
+    // Only now that the batch is durable may anyone see it.
+    for (Change change : batch) {
+      if (change.type == ADD) {
+        calendar.addEvents(change.events);
+      } else {
+        change.removed = calendar.removeEvent(change.events.get(0));
+      }
+      change.settled = true;
+    }
+  }
+
+  private void compactInBackground() {
+    try {
+      compactor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            // The flag was set when this was scheduled; compact() sets it again itself.
+            compacting.set(false);
+            compact();
+          } catch (IOException e) {
+            // The old files are only deleted once the snapshot is safe, so the next compaction
+            // simply tries again.
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // The log is closing.
+      compacting.set(false);
+    }
+  }
+
+  /**
+   * A change waiting to be written, and what became of it. Settled under {@code syncLock}.
+   */
+  private static final class Change {
+    final byte type;
+    final List<Event> events;
+    boolean settled;
+    boolean removed;
+    IOException failure;
+
+    Change(byte type, List<Event> events) {
+      this.type = type;
+      this.events = events;
+    }
+  }
+
+  private void deleteBefore(long keep) throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        if ((name.startsWith(SNAPSHOT) && !name.endsWith(TEMPORARY) && generationOf(name, SNAPSHOT) < keep)
+            || (name.startsWith(WAL) && generationOf(name, WAL) < keep)) {
+          Files.delete(file);
+        }
+      }
+    }
+  }
+
+  private static FileChannel openWal(Path directory, long generation) throws IOException {
+    Path file = directory.resolve(WAL + generation);
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    if (channel.size() == 0) {
+      ByteArrayOutputStream header = new ByteArrayOutputStream();
+      writeHeader(header);
+      writeFully(channel, header.toByteArray());
+      channel.force(false);
+      syncDirectory(directory);
+    }
+    channel.position(channel.size());
+    return channel;
+  }
+
+  private static long generationOf(String name, String prefix) throws IOException {
+    String number = name.substring(prefix.length(), name.endsWith(TEMPORARY)
+        ? name.length() - TEMPORARY.length() : name.length());
+    try {
+      return Long.parseLong(number);
+    } catch (NumberFormatException e) {
+      throw new IOException("unexpected file in calendar log directory: " + name);
+    }
+  }
+
+  /**
+   * Makes a new or renamed file's directory entry durable. Not every platform can open a directory,
+   * and those that can't make renames durable on their own.
+   */
+  private static void syncDirectory(Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // Best effort.
+    }
+  }
+
+  private static void writeHeader(ByteArrayOutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+  }
+
+  /**
+   * Appends a record: its length, the CRC32 of its contents, then the type and the event.
+   */
+  private static void writeRecord(ByteArrayOutputStream out, byte type, Event event) throws IOException {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    DataOutputStream data = new DataOutputStream(body);
+    data.writeByte(type);
+    writeString(data, event.getTitle());
+    data.writeInt(event.getWhen().start());
+    data.writeInt(event.getWhen().duration());
+    data.writeInt(event.getAttendees().size());
+    for (String attendee : event.getAttendees()) {
+      writeString(data, attendee);
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(body.toByteArray());
+    DataOutputStream frame = new DataOutputStream(out);
+    frame.writeInt(body.size());
+    frame.writeInt((int) crc.getValue());
+    body.writeTo(out);
+  }
+
+  private static void writeString(DataOutputStream data, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    data.writeInt(bytes.length);
+    data.write(bytes);
+  }
+
+  private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Reads records back into a calendar, adding runs of events in one batch.
+   */
+  private static final class Replay {
+    private final IncrementalCalendar calendar;
+    private final List<Event> adds = new ArrayList<>();
+    long records;
+
+    Replay(IncrementalCalendar calendar) {
+      this.calendar = calendar;
+    }
+
+    /**
+     * Reads every record in {@code file}. If {@code mayBeTorn}, a bad record is taken to be where a
+     * crash cut the file short, and the file is truncated there; otherwise it is an error.
+     */
+    void read(Path file, boolean mayBeTorn) throws IOException {
+      ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+      if (bytes.remaining() < HEADER_BYTES) {
+        // A header that never made it to disk.
+        if (!mayBeTorn) {
+          throw new IOException("calendar log file is truncated: " + file);
+        }
+        Files.delete(file);
+        return;
+      }
+      if (bytes.getInt() != MAGIC || bytes.getInt() != VERSION) {
+        throw new IOException("not a calendar log file: " + file);
+      }
+
+      while (bytes.hasRemaining()) {
+        int start = bytes.position();
+        Event event = null;
+        byte type = 0;
+        if (bytes.remaining() >= FRAME_BYTES) {
+          int length = bytes.getInt();
+          int expected = bytes.getInt();
+          if (length >= 0 && length <= bytes.remaining()) {
+            byte[] body = new byte[length];
+            bytes.get(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() == expected) {
+              ByteBuffer record = ByteBuffer.wrap(body);
+              type = record.get();
+              event = readEvent(record);
+            }
+          }
+        }
+        if (event == null) {
+          if (!mayBeTorn) {
+            throw new IOException("calendar log file is corrupt: " + file);
+          }
+          try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(start);
+            channel.force(false);
+          }
+          return;
+        }
+        apply(type, event);
+      }
+    }
+
+    void flush() {
+      if (!adds.isEmpty()) {
+        calendar.addEvents(adds);
+        adds.clear();
+      }
+    }
+
+    private void apply(byte type, Event event) throws IOException {
+      records++;
+      if (type == ADD) {
+        adds.add(event);
+      } else if (type == REMOVE) {
+        flush();
+        calendar.removeEvent(event);
+      } else {
+        throw new IOException("unknown calendar log record type " + type);
+      }
+    }
+
+    private static Event readEvent(ByteBuffer record) {
+      String title = readString(record);
+      int start = record.getInt();
+      int duration = record.getInt();
+      int count = record.getInt();
+      List<String> attendees = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        attendees.add(readString(record));
+      }
+      return new Event(title, TimeRange.fromStartDuration(start, duration), attendees);
+    }
+
+    private static String readString(ByteBuffer record) {
+      byte[] bytes = new byte[record.getInt()];
+      record.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+}
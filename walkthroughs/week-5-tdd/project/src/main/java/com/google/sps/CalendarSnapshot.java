@@ -0,0 +1,350 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A calendar stored in a binary file and read in place through a memory mapping, so loading it
+ * costs one system call and the events never become {@code Event} objects on the heap. Only the
+ * attendees' names are read up front, to map them to ids in the shared {@code AttendeeRegistry}.
+ *
+ * <p>The file holds, in big-endian order:
+ *
+ * <pre>
+ *   int magic, int version, int eventCount, int personCount, int maxDuration
+ *   int[eventCount] starts          events sorted by start time
+ *   int[eventCount] durations
+ *   int[personCount + 1] offsets    where each person's postings begin in the next column
+ *   int[offsets[personCount]] postings
+ *                                   each person's events, as indexes into the columns above
+ *   personCount times: int length, byte[length] name in UTF-8
+ * </pre>
+ *
+ * <p>Titles are not stored, since finding meeting times never needs them. Because events are sorted
+ * by start time, a person's postings are too, and the first one that can overlap a span is found
+ * with a binary search that steps back by the longest duration. A busy range that began before
+ * that point may be reported as starting later than it really did, but never later than the start
+ * of the span.
+ *
+ * <p>Opening a snapshot checks every column once, so a corrupt or foreign file is rejected with an
+ * {@code IOException} up front rather than failing in the middle of a query. Snapshots are read-only
+ * and safe to share between threads.
+ */
+public final class CalendarSnapshot implements BusySchedule {
+  private static final int MAGIC = 0x43414c53;
+  private static final int VERSION = 1;
+  private static final int HEADER_INTS = 5;
+
+  private final IntBuffer starts;
+  private final IntBuffer durations;
+  private final IntBuffer offsets;
+  private final IntBuffer postings;
+  private final int eventCount;
+  private final int maxDuration;
+  // The registry ids of everyone in the file, sorted, and each one's index in the file at the same
+  // position.
+  private final int[] ids;
+  private final int[] persons;
+
+  private CalendarSnapshot(ByteBuffer file) throws IOException {
+    if (file.remaining() < HEADER_INTS * 4 || file.getInt(0) != MAGIC) {
+      throw new IOException("not a calendar snapshot");
+    }
+    if (file.getInt(4) != VERSION) {
+      throw new IOException("unsupported calendar snapshot version " + file.getInt(4));
+    }
+    eventCount = file.getInt(8);
+    int personCount = file.getInt(12);
+    maxDuration = file.getInt(16);
+    if (eventCount < 0 || personCount < 0 || maxDuration < 0) {
+      throw new IOException("calendar snapshot has a negative count");
+    }
+
+    // Positions are longs, so a huge count can't wrap around to a position that looks valid.
+    long position = HEADER_INTS * 4;
+    starts = ints(file, position, eventCount);
+    position += eventCount * 4L;
+    durations = ints(file, position, eventCount);
+    position += eventCount * 4L;
+    offsets = ints(file, position, personCount + 1L);
+    position += (personCount + 1L) * 4;
+    int postingCount = offsets.get(personCount);
+    postings = ints(file, position, postingCount);
+    position += postingCount * 4L;
+    checkColumns(personCount);
+
+    AttendeeRegistry registry = AttendeeRegistry.shared();
+    // Each person's id and index in the file, packed so that sorting orders them by id.
+    long[] people = new long[personCount];
+    for (int person = 0; person < personCount; person++) {
+      if (position + 4 > file.limit()) {
+        throw new IOException("calendar snapshot is truncated");
+      }
+      int length = file.getInt((int) position);
+      if (length < 0 || position + 4 + length > file.limit()) {
+        throw new IOException("calendar snapshot is truncated");
+      }
+      byte[] name = new byte[length];
+      ByteBuffer view = file.duplicate();
+      // Cast so the class still links on Java 8, where position() is only defined on Buffer.
+      ((Buffer) view).position((int) position + 4);
+      view.get(name);
+      int id = registry.intern(new String(name, StandardCharsets.UTF_8));
+      people[person] = ((long) id << 32) | person;
+      position += 4 + length;
+    }
+
+    Arrays.sort(people);
+    ids = new int[personCount];
+    persons = new int[personCount];
+    for (int i = 0; i < personCount; i++) {
+      ids[i] = (int) (people[i] >>> 32);
+      persons[i] = (int) people[i];
+      if (i > 0 && ids[i] == ids[i - 1]) {
+        throw new IOException("calendar snapshot lists a person twice");
+      }
+    }
+  }
+
+  /**
+   * Checks that the columns hold what queries rely on: events sorted by start, durations no longer
+   * than the longest, and each person's postings ascending indexes of events.
+   */
+  private void checkColumns(int personCount) throws IOException {
+    for (int event = 0; event < eventCount; event++) {
+      int duration = durations.get(event);
+      if (duration < 0 || duration > maxDuration) {
+        throw new IOException("calendar snapshot has an event with a bad duration");
+      }
+      if (event > 0 && starts.get(event) < starts.get(event - 1)) {
+        throw new IOException("calendar snapshot's events are not sorted by start time");
+      }
+      if ((long) starts.get(event) + duration > Integer.MAX_VALUE) {
+        throw new IOException("calendar snapshot has an event that ends too late");
+      }
+    }
+
+    if (offsets.get(0) != 0) {
+      throw new IOException("calendar snapshot's postings don't start at 0");
+    }
+    for (int person = 0; person < personCount; person++) {
+      int first = offsets.get(person);
+      int last = offsets.get(person + 1);
+      if (last < first) {
+        throw new IOException("calendar snapshot's posting offsets go backwards");
+      }
+      for (int i = first; i < last; i++) {
+        int event = postings.get(i);
+        if (event < 0 || event >= eventCount) {
+          throw new IOException("calendar snapshot has a posting to a missing event");
+        }
+        if (i > first && event <= postings.get(i - 1)) {
+          throw new IOException("calendar snapshot's postings are not in ascending order");
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes {@code events} to {@code file} in the snapshot format, replacing anything already there.
+   */
+  public static void write(Collection<Event> events, Path file) throws IOException {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+    try (OutputStream out = Files.newOutputStream(file)) {
+      write(events, out);
+    }
+  }
+
+  /**
+   * Writes {@code events} to {@code out} in the snapshot format. The stream is not closed.
+   */
+  public static void write(Collection<Event> events, OutputStream out) throws IOException {
+    List<Event> sorted = new ArrayList<>(events);
+    Collections.sort(sorted, new Comparator<Event>() {
+      @Override
+      public int compare(Event a, Event b) {
+        return TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen());
+      }
+    });
+
+    // Number the people in the order they first appear, and list each one's events.
+    Map<String, Integer> people = new HashMap<>();
+    List<String> names = new ArrayList<>();
+    List<List<Integer>> postings = new ArrayList<>();
+    int maxDuration = 0;
+    for (int e = 0; e < sorted.size(); e++) {
+      Event event = sorted.get(e);
+      maxDuration = Math.max(maxDuration, event.getWhen().duration());
+      for (String attendee : event.getAttendees()) {
+        Integer person = people.get(attendee);
+        if (person == null) {
+          person = names.size();
+          people.put(attendee, person);
+          names.add(attendee);
+          postings.add(new ArrayList<Integer>());
+        }
+        postings.get(person).add(e);
+      }
+    }
+
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(sorted.size());
+    data.writeInt(names.size());
+    data.writeInt(maxDuration);
+    for (Event event : sorted) {
+      data.writeInt(event.getWhen().start());
+    }
+    for (Event event : sorted) {
+      data.writeInt(event.getWhen().duration());
+    }
+    int offset = 0;
+    data.writeInt(offset);
+    for (List<Integer> list : postings) {
+      offset += list.size();
+      data.writeInt(offset);
+    }
+    for (List<Integer> list : postings) {
+      for (int e : list) {
+        data.writeInt(e);
+      }
+    }
+    for (String name : names) {
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      data.writeInt(bytes.length);
+      data.write(bytes);
+    }
+    data.flush();
+  }
+
+  /**
+   * Maps {@code file} into memory and reads it as a snapshot. The mapping stays valid after this
+   * returns, for as long as the snapshot is reachable.
+   *
+   * @throws IOException if the file can't be read or isn't a snapshot.
+   */
+  public static CalendarSnapshot open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return new CalendarSnapshot(mapped);
+    }
+  }
+
+  /**
+   * Reads a snapshot that is already in memory, such as one just written to a byte array.
+   */
+  public static CalendarSnapshot of(ByteBuffer snapshot) throws IOException {
+    return new CalendarSnapshot(snapshot.slice());
+  }
+
+  @Override
+  public void collectBusyTimes(int attendeeId, int from, int to, RangeBuffer out) {
+    int found = Arrays.binarySearch(ids, attendeeId);
+    if (found < 0) {
+      return;
+    }
+    int person = persons[found];
+    int last = offsets.get(person + 1);
+
+    // No event that starts before this can reach the span.
+    int i = firstStartingAtOrAfter(offsets.get(person), last, from - maxDuration);
+    int busyStart = 0;
+    int busyEnd = 0;
+    boolean open = false;
+    for (; i < last; i++) {
+      int event = postings.get(i);
+      int start = starts.get(event);
+      // Past the span, keep going only while the events still extend the range that reaches into it.
+      if (start >= to && !(open && start <= busyEnd)) {
+        break;
+      }
+      int end = start + durations.get(event);
+      if (open && start <= busyEnd) {
+        busyEnd = Math.max(busyEnd, end);
+        continue;
+      }
+      if (open && busyEnd > from) {
+        out.add(busyStart, busyEnd);
+      }
+      busyStart = start;
+      busyEnd = end;
+      open = true;
+    }
+    if (open && busyEnd > from) {
+      out.add(busyStart, busyEnd);
+    }
+  }
+
+  /**
+   * Returns the number of events in the snapshot.
+   */
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Returns the first posting in [{@code low}, {@code high}) whose event starts at or after {@code
+   * point}, or {@code high} if there is none.
+   */
+  private int firstStartingAtOrAfter(int low, int high, int point) {
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (starts.get(postings.get(middle)) >= point) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns a view of {@code count} ints starting {@code position} bytes into {@code file}.
+   */
+  private static IntBuffer ints(ByteBuffer file, long position, long count) throws IOException {
+    if (count < 0 || position + count * 4 > file.limit()) {
+      throw new IOException("calendar snapshot is truncated");
+    }
+    ByteBuffer view = file.duplicate();
+    ((Buffer) view).position((int) position);
+    ((Buffer) view).limit((int) (position + count * 4));
+    return view.slice().asIntBuffer();
+  }
+}
@@ -14,10 +14,12 @@
 
 package com.google.sps;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Event is the container class for when a specific group of people are meeting and are therefore
@@ -26,7 +28,11 @@ import java.util.Set;
 public final class Event {
   private final String title;
   private final TimeRange when;
-  private final Set<String> attendees = new HashSet<>();
+  // Sorted and free of duplicates so that lookups and equality checks are cheap. An array costs a
+  // fraction of the memory of a hash set, and serializes to JSON the same way.
+  private final String[] attendees;
+  // The attendees' ids from the shared {@code AttendeeRegistry}, sorted in ascending order.
+  private final transient int[] attendeeIds;
 
   /**
    * Creates a new event.
@@ -50,7 +56,14 @@ public final class Event {
 
     this.title = title;
     this.when = when;
-    this.attendees.addAll(attendees);
+    this.attendees = new TreeSet<>(attendees).toArray(new String[0]);
+
+    AttendeeRegistry registry = AttendeeRegistry.shared();
+    this.attendeeIds = new int[this.attendees.length];
+    for (int i = 0; i < this.attendees.length; i++) {
+      attendeeIds[i] = registry.intern(this.attendees[i]);
+    }
+    Arrays.sort(attendeeIds);
   }
 
   /**
@@ -71,9 +84,16 @@ public final class Event {
    * Returns a read-only set of required attendees for this event.
    */
   public Set<String> getAttendees() {
-    // Return the attendees as an unmodifiable set so that the caller can't change our
-    // internal data.
-    return Collections.unmodifiableSet(attendees);
+    // Return the attendees as a read-only view so that the caller can't change our internal data.
+    return new AttendeeSet(attendees);
+  }
+
+  /**
+   * Returns the ids of the attendees in the shared {@code AttendeeRegistry}, sorted in ascending
+   * order. The caller must not modify the returned array.
+   */
+  int[] getAttendeeIds() {
+    return attendeeIds;
   }
 
   @Override
@@ -89,8 +109,35 @@ public final class Event {
   }
 
   private static boolean equals(Event a, Event b) {
-    // {@code attendees} must be a set for equals to work as expected. According to the {@code Set}
-    // interface documentation, equals will check for set-equality across all set implementations.
-    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+    // {@code attendees} is sorted and free of duplicates, so comparing the arrays checks for
+    // set-equality.
+    return a.title.equals(b.title) && a.when.equals(b.when)
+        && Arrays.equals(a.attendees, b.attendees);
+  }
+
+  /**
+   * A read-only set backed by a sorted array of names.
+   */
+  private static final class AttendeeSet extends AbstractSet<String> {
+    private final String[] names;
+
+    AttendeeSet(String[] names) {
+      this.names = names;
+    }
+
+    @Override
+    public boolean contains(Object name) {
+      return name instanceof String && Arrays.binarySearch(names, name) >= 0;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return Arrays.asList(names).iterator();
+    }
+
+    @Override
+    public int size() {
+      return names.length;
+    }
   }
 }
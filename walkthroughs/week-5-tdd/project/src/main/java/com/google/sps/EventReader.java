@@ -0,0 +1,117 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads events one at a time from a stream of JSON objects, such as newline-delimited JSON with one
+ * event per line. Each event looks the way Gson writes one:
+ *
+ * <pre>
+ *   {"title": "Standup", "when": {"start": 540, "duration": 15}, "attendees": ["Ava", "Liam"]}
+ * </pre>
+ *
+ * <p>Only the event being read is held in memory, so a stream of any size can be loaded without
+ * building a tree of the whole document. Unknown fields are skipped. Readers are not thread-safe.
+ */
+public final class EventReader implements Closeable {
+  private static final TimeRangeAdapter TIME_RANGES = new TimeRangeAdapter();
+
+  private final JsonReader json;
+
+  public EventReader(Reader in) {
+    json = new JsonReader(in);
+    // Lenient mode accepts a stream of top-level values rather than exactly one.
+    json.setLenient(true);
+  }
+
+  /**
+   * Returns the next event, or {@code null} at the end of the stream.
+   *
+   * @throws MalformedJsonException If the stream is not JSON or an event is missing a field.
+   */
+  public Event next() throws IOException {
+    try {
+      if (json.peek() == JsonToken.END_DOCUMENT) {
+        return null;
+      }
+      return readEvent();
+    } catch (IllegalStateException | NumberFormatException e) {
+      throw new MalformedJsonException(e.getMessage());
+    }
+  }
+
+  /**
+   * Reads up to {@code max} events into {@code batch}. Returns the number read, which is less than
+   * {@code max} only at the end of the stream.
+   */
+  public int next(List<Event> batch, int max) throws IOException {
+    int read = 0;
+    Event event;
+    while (read < max && (event = next()) != null) {
+      batch.add(event);
+      read++;
+    }
+    return read;
+  }
+
+  @Override
+  public void close() throws IOException {
+    json.close();
+  }
+
+  private Event readEvent() throws IOException {
+    String title = null;
+    TimeRange when = null;
+    List<String> attendees = null;
+
+    json.beginObject();
+    while (json.hasNext()) {
+      switch (json.nextName()) {
+        case "title":
+          title = json.nextString();
+          break;
+        case "when":
+          when = TIME_RANGES.read(json);
+          break;
+        case "attendees":
+          attendees = new ArrayList<>();
+          json.beginArray();
+          while (json.hasNext()) {
+            attendees.add(json.nextString());
+          }
+          json.endArray();
+          break;
+        default:
+          json.skipValue();
+      }
+    }
+    json.endObject();
+
+    if (title == null || when == null || attendees == null) {
+      throw new MalformedJsonException("event needs a title, when and attendees " + json);
+    }
+    return new Event(title, when, attendees);
+  }
+}
@@ -15,186 +15,413 @@
 package com.google.sps;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.stream.Collectors;
 import java.util.List;
-import java.util.Set;
-import java.util.Iterator;
-import java.util.BitSet;
-import org.paukov.combinatorics3.Generator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class to find a list of possible meeting times based on a request (Required attendees and length of event).
- * Also considers optional attendees and returns the timeframes where everyone can meet if applicable.
+ * Also considers optional attendees and returns the timeframes where the most of them can join, counting
+ * each by their weight.
  */
 public final class FindMeetingQuery {
 
+    /**
+     * The ways the mandatory attendees' free time can be worked out.
+     */
+    public enum Engine {
+        /**
+         * Paints every busy slot into a bitmap and finds long enough runs of free slots a word at a
+         * time. Costs O(slots in the horizon / 64 * log(slots in the meeting)).
+         */
+        BITMAP,
+        /** Sorts the busy ranges by start time and walks them once. Costs O(n log n) for n ranges. */
+        SWEEP
+    }
+
+    // Every thread gets its own scratch space, so the same FindMeetingQuery can be shared.
+    private static final ThreadLocal<QueryContext> CONTEXTS = new ThreadLocal<QueryContext>() {
+        @Override
+        protected QueryContext initialValue() {
+            return new QueryContext();
+        }
+    };
+
+    private final Engine engine;
+    private final AvailabilityBitmap.Granularity granularity;
+    private final WorkingHoursDirectory workingHours;
+
+    public FindMeetingQuery() {
+        this(Engine.SWEEP);
+    }
+
+    public FindMeetingQuery(Engine engine) {
+        this(engine, AvailabilityBitmap.Granularity.ONE_MINUTE);
+    }
+
+    /*
+     * Creates a query whose bitmap engine uses slots of the given length. Slots longer than a
+     * minute make the bitmap smaller, but any slot a mandatory attendee is busy in for even a minute
+     * is treated as busy. The sweep engine always works in minutes.
+     */
+    public FindMeetingQuery(Engine engine, AvailabilityBitmap.Granularity granularity) {
+        this(engine, granularity, null);
+    }
+
+    /*
+     * Creates a query that only offers times within the working hours of every mandatory attendee,
+     * and only counts an optional attendee as able to join within theirs. People missing from the
+     * directory are available around the clock, as is everyone if the directory is null.
+     */
+    public FindMeetingQuery(Engine engine, AvailabilityBitmap.Granularity granularity,
+        WorkingHoursDirectory workingHours) {
+        if (engine == null) {
+            throw new IllegalArgumentException("engine cannot be null");
+        }
+        if (granularity == null) {
+            throw new IllegalArgumentException("granularity cannot be null");
+        }
+        this.engine = engine;
+        this.granularity = granularity;
+        this.workingHours = workingHours;
+    }
+
     /*
      * Main method, loops through the day's scheduled events to try and find an optimal meeting time for the given request.
      */
     public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
-        final int sizeOfBitSet = (int) ((int) (TimeRange.END_OF_DAY + 1 - TimeRange.START_OF_DAY) / 5);
-        final int meetingTimeLength = (int) request.getDuration();
-        final int numberOfConflictingMeetings = events.size();
-        final Collection<String> attendees = request.getAttendees();
-        final Collection<String> optionalAttendees = request.getOptionalAttendees();
-        Collection<TimeRange> openTimeSlots = null;
-        ArrayList<TimeRange> mandatoryAttendeeMeetings = new ArrayList<TimeRange>();
-        ArrayList<BitSet> options = new ArrayList<BitSet>();
-        BitSet allOpenings = new BitSet(sizeOfBitSet);
+        return query(CalendarIndex.of(events), request);
+    }
 
-        for (int i = 0; i <= sizeOfBitSet; i++) {
-            allOpenings.set(i * 5 + TimeRange.START_OF_DAY);
+    /*
+     * Finds meeting times within a horizon around one-off and recurring events. Only the occurrences
+     * of the recurring events that fall within the horizon are ever made.
+     */
+    public Collection<TimeRange> query(Collection<Event> events, Collection<RecurringEvent> recurringEvents,
+        MeetingRequest request, Horizon horizon) {
+        return query(RecurringSchedule.of(CalendarIndex.of(events), recurringEvents), request, horizon);
+    }
+
+    /*
+     * Finds meeting times using a calendar that already knows each person's busy times, such as a
+     * CalendarIndex or an IncrementalCalendar, so only the requested attendees' events are looked at.
+     */
+    public Collection<TimeRange> query(BusySchedule calendar, MeetingRequest request) {
+        return query(calendar, request, Horizon.WHOLE_DAY);
+    }
+
+    /*
+     * Finds meeting times within the windows of a horizon, which may span many days. Meetings never
+     * leave a window, so per-day working hours are respected. Uses a query context kept for the
+     * calling thread.
+     */
+    public Collection<TimeRange> query(BusySchedule calendar, MeetingRequest request, Horizon horizon) {
+        return query(calendar, request, horizon, CONTEXTS.get());
+    }
+
+    /*
+     * Finds meeting times using the buffers of the given context. Once the buffers have grown to fit
+     * the calendar, only the returned list is allocated. The context must not be used by another
+     * thread at the same time.
+     */
+    public List<TimeRange> query(BusySchedule calendar, MeetingRequest request, Horizon horizon,
+        QueryContext context) {
+        context.load(request, workingHours);
+        return findTimes(calendar, (int) request.getDuration(), horizon, context);
+    }
+
+    /*
+     * Finds meeting times within a horizon, but stops looking at optional attendees once {@code
+     * timeout} has passed. The times then suit every mandatory attendee and the optional attendees
+     * looked at so far, and the result is flagged as partial. The mandatory attendees are always
+     * looked at in full, so a partial answer never holds a time one of them is busy.
+     */
+    public QueryResult query(BusySchedule calendar, MeetingRequest request, Horizon horizon, long timeout,
+        TimeUnit unit) {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout cannot be negative");
         }
+        QueryContext context = CONTEXTS.get();
+        context.load(request, workingHours);
+        context.setDeadline(System.nanoTime() + unit.toNanos(timeout));
+        List<TimeRange> times = findTimes(calendar, (int) request.getDuration(), horizon, context);
+        return new QueryResult(times, context.partial, context.optionalConsidered);
+    }
 
-        openTimeSlots = checkEdgeCases(
-            attendees, optionalAttendees, meetingTimeLength, numberOfConflictingMeetings);
+    private List<TimeRange> findTimes(BusySchedule calendar, int meetingTimeLength, Horizon horizon,
+        QueryContext context) {
+        List<TimeRange> openTimeSlots = checkEdgeCases(context, meetingTimeLength, horizon);
         if (openTimeSlots != null) {
             return openTimeSlots;
         }
 
-        for (Event event : events) {
-            TimeRange timeOfEvent = event.getWhen();
-            //Checks to make sure that the attendees in the event are actually needed in the meeting.
-            if (attendees.containsAll(event.getAttendees())) {   //Looks at people in meeting request vs people in the daily schedule of.
-                mandatoryAttendeeMeetings.add(event.getWhen());
-            }
-            if (optionalAttendees.containsAll(event.getAttendees())) {
-                ArrayList<TimeRange> temp = new ArrayList<TimeRange>();
-                temp.add(event.getWhen());
-                BitSet tempBit = timeToBit(temp, sizeOfBitSet * 5);
-                options.add(tempBit);
-            }
+        if (engine == Engine.BITMAP) {
+            bitmapOpenings(calendar, horizon, meetingTimeLength, context);
+        } else {
+            sweepOpenings(calendar, horizon, context);
         }
 
-        BitSet mandatoryAttendeeOpenings = timeToBit(mandatoryAttendeeMeetings, sizeOfBitSet);
-        BitSet timesWithOptionalAttendees = optionalMeetingFinder(mandatoryAttendeeOpenings, sizeOfBitSet, meetingTimeLength, options);
-        return examineAllOptions(timesWithOptionalAttendees, allOpenings, mandatoryAttendeeOpenings, meetingTimeLength);
+        // Without mandatory attendees the optional attendees are the only invitees, so a time only
+        // works if all of them can make it.
+        return AttendanceSweep.bestRanges(calendar, context, meetingTimeLength, context.attendeeCount == 0);
+    }
 
+    /*
+     * Returns up to {@code limit} concrete meeting times, best first, ranked by the default policy:
+     * optional attendees who can join, closeness to working hours, and how little unusable free time
+     * the meeting leaves behind.
+     */
+    public List<MeetingSuggestion> suggest(Collection<Event> events, MeetingRequest request, int limit) {
+        return suggest(CalendarIndex.of(events), request, Horizon.WHOLE_DAY, SuggestionPolicy.DEFAULT, limit);
     }
 
     /*
-     * Before examining open meeting times, first checks edge cases.
+     * Returns up to {@code limit} concrete meeting times within a horizon, best first, ranked by the
+     * given policy. Only the best {@code limit} candidates are ever kept, however many times are open.
      */
-    public Collection<TimeRange> checkEdgeCases( Collection<String> attendees, Collection<String> optionalAttendees, 
-        int meetingTimeLength, int numberOfConflictingMeetings) {
-        Collection<TimeRange> openSlots = null;
-        if (attendees.isEmpty() && optionalAttendees.isEmpty()) {
-            openSlots = Arrays.asList(TimeRange.WHOLE_DAY);
-            return openSlots;
+    public List<MeetingSuggestion> suggest(BusySchedule calendar, MeetingRequest request, Horizon horizon,
+        SuggestionPolicy policy, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
         }
-        if (meetingTimeLength > TimeRange.WHOLE_DAY.duration()) {
-            openSlots = Arrays.asList();
-            return openSlots;
+        final int meetingTimeLength = (int) request.getDuration();
+        QueryContext context = CONTEXTS.get();
+        context.load(request, workingHours);
+        if (meetingTimeLength > horizon.getLongestWindow()) {
+            return new ArrayList<MeetingSuggestion>();
         }
-        if (numberOfConflictingMeetings < 1) {
-            openSlots = Arrays.asList(TimeRange.WHOLE_DAY);
-            return openSlots;
+
+        if (engine == Engine.BITMAP) {
+            bitmapOpenings(calendar, horizon, meetingTimeLength, context);
+        } else {
+            sweepOpenings(calendar, horizon, context);
         }
-        return openSlots;
+        AttendanceSweep.sweepRuns(calendar, context, meetingTimeLength);
+
+        int minimum = context.attendeeCount == 0 ? context.optionalWeightTotal : 0;
+        return SuggestionRanker.topK(context, meetingTimeLength, policy, limit, minimum);
     }
 
     /*
-     * Examines all options, ones for mandatory attendees, and ones with optional attendees and returns a list
-     * of timeranges that works best.
+     * Finds meeting times when the attendees and one resource from each of the request's resource
+     * pools are free, using the common fork-join pool to look at the resources in parallel.
+     * Resources are booked by listing their names among an event's attendees.
      */
-    public Collection<TimeRange> examineAllOptions(BitSet timesWithOptionalAttendees, BitSet allOpenings, BitSet mandatoryAttendeeOpenings, int meetingTimeLength) {
-        Collection<TimeRange> finalMeetingTimes = new ArrayList<TimeRange>();
-        int addS, addE, start, end;
+    public List<MeetingOption> queryWithResources(Collection<Event> events, MeetingRequest request) {
+        return queryWithResources(CalendarIndex.of(events), request, Horizon.WHOLE_DAY, ForkJoinPool.commonPool());
+    }
 
-        if (timesWithOptionalAttendees.length() > 1) {
-            allOpenings.and(timesWithOptionalAttendees);
-        } 
-        else if (timesWithOptionalAttendees.length() == 1) {
-            allOpenings.clear();
+    /*
+     * Finds meeting times within a horizon when the attendees and one resource from each of the
+     * request's resource pools are free. Each option names the resources that are free for all of
+     * it, so a day may be split between rooms. If {@code pool} is null the resources are looked at
+     * one after another on the calling thread.
+     */
+    public List<MeetingOption> queryWithResources(BusySchedule calendar, MeetingRequest request,
+        Horizon horizon, ForkJoinPool pool) {
+        final int meetingTimeLength = (int) request.getDuration();
+        QueryContext context = CONTEXTS.get();
+        context.load(request, workingHours);
+        if (meetingTimeLength > horizon.getLongestWindow()) {
+            return new ArrayList<MeetingOption>();
         }
-        else {
-            allOpenings.andNot(mandatoryAttendeeOpenings);
-        }   
-
-        int[] finalOpenings = allOpenings.stream()
-                .filter(s -> (s == 0 || (!allOpenings.get(s - 5)) || !allOpenings.get(s + 5))).toArray();  
 
-        if(finalOpenings.length == 1) {
-            return finalMeetingTimes;
+        if (engine == Engine.BITMAP) {
+            bitmapOpenings(calendar, horizon, meetingTimeLength, context);
+        } else {
+            sweepOpenings(calendar, horizon, context);
         }
-        for (int i = 0; i < finalOpenings.length; i += 2) {
-            addS = 0;
-            addE = 0;
-            if (finalOpenings[i] != TimeRange.START_OF_DAY)
-                addS = 5;
-            if (finalOpenings[i + 1] < TimeRange.END_OF_DAY)
-                addE = 5;
-            start = finalOpenings[i] - addS;
-            end = finalOpenings[i + 1] + addE;
-            if (end - start >= meetingTimeLength) {
-                finalMeetingTimes.add(TimeRange.fromStartEnd(start, end, false));
-            }
+        return ResourceSearch.search(calendar, context, meetingTimeLength, request.getResourcePools(),
+            horizon.getSpan(), pool);
+    }
+
+    /*
+     * Answers many requests against the same events. The events are indexed once and the index is
+     * shared by every request. Results are returned in the same order as the requests.
+     */
+    public List<Collection<TimeRange>> queryAll(Collection<Event> events, List<MeetingRequest> requests) {
+        return queryAll(CalendarIndex.of(events), requests, Horizon.WHOLE_DAY, null);
+    }
+
+    /*
+     * Answers many requests against the same events, spreading the requests over a fork-join pool.
+     */
+    public List<Collection<TimeRange>> queryAll(Collection<Event> events, List<MeetingRequest> requests,
+        ForkJoinPool pool) {
+        return queryAll(CalendarIndex.of(events), requests, Horizon.WHOLE_DAY, pool);
+    }
+
+    /*
+     * Answers many requests against one calendar. If {@code pool} is null the requests are
+     * answered one after another on the calling thread. Results are returned in the same order as
+     * the requests.
+     */
+    public List<Collection<TimeRange>> queryAll(BusySchedule calendar, List<MeetingRequest> requests,
+        Horizon horizon, ForkJoinPool pool) {
+        // Filled in place, each slice writing only its own answers.
+        List<Collection<TimeRange>> answers =
+            new ArrayList<>(Collections.nCopies(requests.size(), (Collection<TimeRange>) null));
+        BatchQuery batch = new BatchQuery(calendar, requests, horizon, answers, 0, requests.size(), pool != null);
+        if (pool == null) {
+            batch.compute();
+        } else {
+            pool.invoke(batch);
         }
-        return finalMeetingTimes;
+        return answers;
     }
 
     /*
-     * Converts time ranges to bitsets.
+     * Answers a slice of a batch of requests, splitting it in half until the slices are small
+     * enough that forking would cost more than it saves.
      */
-    public BitSet timeToBit(ArrayList<TimeRange> meetings, int size) {
-        BitSet oneSet = new BitSet(size);
-        for (TimeRange meeting : meetings) {
-            oneSet.set(meeting.start(), meeting.end() + 1);
+    private final class BatchQuery extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int REQUESTS_PER_TASK = 8;
+
+        private final BusySchedule calendar;
+        private final List<MeetingRequest> requests;
+        private final Horizon horizon;
+        private final List<Collection<TimeRange>> answers;
+        private final int from;
+        private final int to;
+        private final boolean parallel;
+
+        BatchQuery(BusySchedule calendar, List<MeetingRequest> requests, Horizon horizon,
+            List<Collection<TimeRange>> answers, int from, int to, boolean parallel) {
+            this.calendar = calendar;
+            this.requests = requests;
+            this.horizon = horizon;
+            this.answers = answers;
+            this.from = from;
+            this.to = to;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected void compute() {
+            if (!parallel || to - from <= REQUESTS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    answers.set(i, query(calendar, requests.get(i), horizon));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchQuery(calendar, requests, horizon, answers, from, middle, true),
+                new BatchQuery(calendar, requests, horizon, answers, middle, to, true));
         }
-        return oneSet;
     }
-    
+
     /*
-     * Combines multiple bit sets into one.
+     * Before examining open meeting times, first checks edge cases.
      */
-    public BitSet severalToOne(List<BitSet> sets, BitSet openings, int size) {
-        BitSet temp = (BitSet) openings.clone();
-        for (BitSet bit : sets) {
-            temp.or(bit);
+    private List<TimeRange> checkEdgeCases(QueryContext context, int meetingTimeLength, Horizon horizon) {
+        if (meetingTimeLength > horizon.getLongestWindow()) {
+            return new ArrayList<TimeRange>();
+        }
+        if (context.attendeeCount == 0 && context.optionalCount == 0) {
+            List<TimeRange> windows = new ArrayList<TimeRange>();
+            for (int i = 0; i < horizon.getWindows().size(); i++) {
+                TimeRange window = horizon.getWindows().get(i);
+                if (window.duration() >= meetingTimeLength) {
+                    windows.add(window);
+                }
+            }
+            return windows;
         }
-        temp.flip(0, size + 1);
-        return temp;
+        return null;
     }
 
     /*
-     * Checks combinations of meetings for optional attendees combined with mandatory attendees schedules.
+     * Finds the openings by painting the mandatory attendees' busy times, and the time between the
+     * horizon's windows, into a bitmap with one bit per slot of the horizon's span, then searching it
+     * a word at a time for runs of free slots long enough for the meeting.
      */
-    public BitSet optionalMeetingFinder(BitSet singleOpenings, int size, int duration, List<BitSet> options) {
-        // create a schedule bit list for all optional attendees
-        List<List<BitSet>> subsets = Generator.subset(options).simple().stream()
-                .collect(Collectors.<List<BitSet>>toList());
+    private void bitmapOpenings(BusySchedule calendar, Horizon horizon, int meetingTimeLength,
+        QueryContext context) {
+        TimeRange span = horizon.getSpan();
+        AvailabilityBitmap bitmap = context.bitmap;
+        bitmap.reset(span.start(), span.end(), granularity);
+        context.spanStart = span.start();
+        context.spanEnd = span.end();
 
-        boolean isValid = false;
-        int bestOption = 0;
-        BitSet singleSet = new BitSet(size * 5);
-        BitSet tempOptions = new BitSet(size * 5);
+        RangeBuffer busy = context.personBusy;
+        for (int a = 0; a < context.attendeeCount; a++) {
+            busy.clear();
+            calendar.collectBusyTimes(context.attendeeIds[a], span.start(), span.end(), busy);
+            for (int i = 0; i < busy.size(); i++) {
+                bitmap.markBusy(busy.start(i), busy.end(i));
+            }
+            // People who share working hours share one compiled mask, applied once.
+            WorkingHours hours = context.workingHoursOf(context.attendeeIds[a]);
+            if (hours != null && context.addProfile(hours)) {
+                bitmap.markBusy(hours.offHoursMask(span.start(), span.end(), granularity));
+            }
+        }
 
-        // loop through to see what schedule fits most attendees
-        for (List<BitSet> set : subsets) {
-            isValid = false;
-            if (set.size() > 0) {
-                singleSet = severalToOne(set, singleOpenings, size* 5);
-                BitSet temp = (BitSet) singleSet.clone();
-                int[] check = temp.stream().filter(s -> temp.nextClearBit(s) - s + 2 >= duration).toArray();
-                if (check.length > 0) { // ensures that optional meetinf slot >= to required meeting length
-                    isValid = true;
-                }
+        int free = span.start();
+        for (int w = 0; w < horizon.getWindows().size(); w++) {
+            TimeRange window = horizon.getWindows().get(w);
+            bitmap.markBusy(free, window.start());
+            free = window.end();
+        }
+
+        // The busy times have all been painted, so their buffer can hold the openings.
+        busy.clear();
+        bitmap.findFree(meetingTimeLength, busy);
+        for (int i = 0; i < busy.size(); i++) {
+            context.addOpening(busy.start(i), busy.end(i));
+        }
+    }
+
+    /*
+     * Finds the openings by sorting the mandatory attendees' busy ranges by start time and walking
+     * them alongside the horizon's windows once, without touching the minutes in between. This costs
+     * O(n log n + w) for n busy ranges and w windows, however long the horizon.
+     */
+    private void sweepOpenings(BusySchedule calendar, Horizon horizon, QueryContext context) {
+        TimeRange span = horizon.getSpan();
+        context.spanStart = span.start();
+        context.spanEnd = span.end();
+        RangeBuffer busy = context.personBusy;
+        for (int a = 0; a < context.attendeeCount; a++) {
+            busy.clear();
+            calendar.collectBusyTimes(context.attendeeIds[a], span.start(), span.end(), busy);
+            for (int i = 0; i < busy.size(); i++) {
+                context.addBusy(busy.start(i), busy.end(i));
             }
-            if (isValid && set.size() > bestOption) {
-                bestOption = set.size();
-                tempOptions = singleSet;
+            WorkingHours hours = context.workingHoursOf(context.attendeeIds[a]);
+            if (hours != null && context.addProfile(hours)) {
+                RangeBuffer offHours = hours.offHours(span.start(), span.end());
+                for (int i = 0; i < offHours.size(); i++) {
+                    context.addBusy(offHours.start(i), offHours.end(i));
+                }
             }
         }
+        Arrays.sort(context.busy, 0, context.busyCount);
 
-        if (singleOpenings.isEmpty() && bestOption == 1) {
-            tempOptions.clear();
-            tempOptions.set(0);
+        int next = 0;
+        int busyUntil = Integer.MIN_VALUE;
+        for (int w = 0; w < horizon.getWindows().size(); w++) {
+            TimeRange window = horizon.getWindows().get(w);
+            int free = Math.max(window.start(), busyUntil);
+            while (next < context.busyCount && QueryContext.packedStart(context.busy[next]) < window.end()) {
+                int start = QueryContext.packedStart(context.busy[next]);
+                int end = QueryContext.packedEnd(context.busy[next]);
+                next++;
+                if (start > free) {
+                    context.addOpening(free, start);
+                }
+                free = Math.max(free, end);
+                busyUntil = Math.max(busyUntil, end);
+            }
+            if (free < window.end()) {
+                context.addOpening(free, window.end());
+            }
         }
-        return tempOptions;
     }
 
 }
@@ -0,0 +1,75 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The times a {@code GroupScheduler} placed a set of meetings at, in the same order as the requests.
+ * A meeting that could not be placed has a null time. Schedules are read-only.
+ */
+public final class GroupSchedule {
+  private final List<TimeRange> times;
+  private final int placedCount;
+  private final boolean timedOut;
+
+  GroupSchedule(List<TimeRange> times, boolean timedOut) {
+    int placed = 0;
+    for (TimeRange time : times) {
+      if (time != null) {
+        placed++;
+      }
+    }
+    this.times = Collections.unmodifiableList(times);
+    this.placedCount = placed;
+    this.timedOut = timedOut;
+  }
+
+  /**
+   * Returns when each meeting takes place, or null for a meeting that could not be placed.
+   */
+  public List<TimeRange> getTimes() {
+    return times;
+  }
+
+  /**
+   * Returns the number of meetings that were placed.
+   */
+  public int getPlacedCount() {
+    return placedCount;
+  }
+
+  /**
+   * Returns {@code true} if every meeting was placed.
+   */
+  public boolean isComplete() {
+    return placedCount == times.size();
+  }
+
+  /**
+   * Returns {@code true} if the time budget ran out before every meeting was placed. The schedule
+   * then holds the most meetings any branch of the search managed to place without conflicts.
+   */
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("GroupSchedule: %s%s", times, timedOut ? " (timed out)" : "");
+  }
+}
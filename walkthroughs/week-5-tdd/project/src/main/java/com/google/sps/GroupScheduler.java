@@ -0,0 +1,372 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Places a whole set of meetings at once, such as the interviews of an interview loop, so that no
+ * two meetings that share a mandatory attendee overlap. Placing meetings one at a time and keeping
+ * the first time found for each often paints later meetings into a corner; this searches the
+ * combinations instead.
+ *
+ * <p>Each meeting's candidates are its best {@code candidatesPerMeeting} suggestions under a {@code
+ * SuggestionPolicy}, so the search is bounded and tries the times the policy likes first. The
+ * search is a backtracking search that always places the meeting with the fewest candidates left
+ * next, and after placing one strikes the candidates it rules out from every meeting it conflicts
+ * with, backing up as soon as one runs out. The candidates of the first meeting placed are searched
+ * as separate branches on a fork-join pool. When several branches succeed, the one that comes first
+ * in the first meeting's candidate order wins, so the answer is the same as a search on one thread.
+ */
+public final class GroupScheduler {
+  private final FindMeetingQuery query;
+  private final SuggestionPolicy policy;
+  private final int candidatesPerMeeting;
+
+  public GroupScheduler() {
+    this(new FindMeetingQuery(), SuggestionPolicy.DEFAULT, 64);
+  }
+
+  /**
+   * @param query The query the candidates are found with.
+   * @param policy The policy the candidates are picked and ordered by.
+   * @param candidatesPerMeeting How many candidate times each meeting gets. Must be positive.
+   */
+  public GroupScheduler(FindMeetingQuery query, SuggestionPolicy policy, int candidatesPerMeeting) {
+    if (query == null) {
+      throw new IllegalArgumentException("query cannot be null");
+    }
+    if (policy == null) {
+      throw new IllegalArgumentException("policy cannot be null");
+    }
+    if (candidatesPerMeeting <= 0) {
+      throw new IllegalArgumentException("candidates per meeting must be positive");
+    }
+    this.query = query;
+    this.policy = policy;
+    this.candidatesPerMeeting = candidatesPerMeeting;
+  }
+
+  /**
+   * Places the meetings within a single day, giving up after a second, using the common fork-join
+   * pool.
+   */
+  public GroupSchedule schedule(Collection<Event> events, List<MeetingRequest> requests) {
+    return schedule(CalendarIndex.of(events), requests, Horizon.WHOLE_DAY, 1, TimeUnit.SECONDS,
+        ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Places the meetings within a horizon. If {@code timeout} passes before every meeting is placed,
+   * the schedule holds the most meetings placed so far. If {@code pool} is null the branches are
+   * searched one after another on the calling thread.
+   */
+  public GroupSchedule schedule(BusySchedule calendar, List<MeetingRequest> requests, Horizon horizon,
+      long timeout, TimeUnit unit, ForkJoinPool pool) {
+    if (requests == null) {
+      throw new IllegalArgumentException("requests cannot be null");
+    }
+    if (timeout < 0) {
+      throw new IllegalArgumentException("timeout cannot be negative");
+    }
+    Problem problem = new Problem(requests.size(), System.nanoTime() + unit.toNanos(timeout));
+
+    List<Collection<String>> people = new ArrayList<>(requests.size());
+    for (int i = 0; i < requests.size(); i++) {
+      MeetingRequest request = requests.get(i);
+      List<MeetingSuggestion> suggestions =
+          query.suggest(calendar, request, horizon, policy, candidatesPerMeeting);
+      problem.durations[i] = (int) request.getDuration();
+      problem.starts[i] = new int[suggestions.size()];
+      for (int k = 0; k < suggestions.size(); k++) {
+        problem.starts[i][k] = suggestions.get(k).getWhen().start();
+      }
+      // Without mandatory attendees, the optional attendees are the ones who must all be there.
+      people.add(request.getAttendees().isEmpty() ? request.getOptionalAttendees() : request.getAttendees());
+    }
+    for (int i = 0; i < requests.size(); i++) {
+      for (int j = i + 1; j < requests.size(); j++) {
+        boolean conflict = !Collections.disjoint(people.get(i), people.get(j));
+        problem.conflicts[i][j] = conflict;
+        problem.conflicts[j][i] = conflict;
+      }
+    }
+
+    Search root = new Search(problem, 0);
+    int first = root.pickMeeting();
+    if (first < 0) {
+      // No meeting has a single candidate, or there are no meetings.
+      return problem.toSchedule(root.assigned, false);
+    }
+
+    Search[] branches = new Search[problem.starts[first].length];
+    Branches task = new Branches(problem, first, branches, 0, branches.length, pool != null);
+    if (pool == null) {
+      task.compute();
+    } else {
+      pool.invoke(task);
+    }
+
+    int solved = problem.solvedBranch.get();
+    if (solved < branches.length) {
+      return problem.toSchedule(branches[solved].assigned, false);
+    }
+    Search best = null;
+    boolean timedOut = false;
+    for (Search branch : branches) {
+      if (branch != null) {
+        timedOut |= branch.timedOut;
+        if (best == null || branch.bestPlaced > best.bestPlaced) {
+          best = branch;
+        }
+      }
+    }
+    return problem.toSchedule(best == null ? root.assigned : best.bestAssigned, timedOut);
+  }
+
+  /**
+   * The meetings to place, shared read-only by every branch of the search.
+   */
+  private static final class Problem {
+    // Each meeting's candidate start times, best first, and its length.
+    final int[][] starts;
+    final int[] durations;
+    // Whether two meetings share a mandatory attendee and so may not overlap.
+    final boolean[][] conflicts;
+    final long deadline;
+    // The first branch that placed every meeting, or Integer.MAX_VALUE while none has.
+    final AtomicInteger solvedBranch = new AtomicInteger(Integer.MAX_VALUE);
+
+    Problem(int meetings, long deadline) {
+      this.starts = new int[meetings][];
+      this.durations = new int[meetings];
+      this.conflicts = new boolean[meetings][meetings];
+      this.deadline = deadline;
+    }
+
+    boolean overlaps(int a, int aStart, int b, int bStart) {
+      return aStart < bStart + durations[b] && bStart < aStart + durations[a];
+    }
+
+    void solved(int branch) {
+      while (true) {
+        int current = solvedBranch.get();
+        if (branch >= current || solvedBranch.compareAndSet(current, branch)) {
+          return;
+        }
+      }
+    }
+
+    GroupSchedule toSchedule(int[] assigned, boolean timedOut) {
+      List<TimeRange> times = new ArrayList<>(assigned.length);
+      for (int i = 0; i < assigned.length; i++) {
+        times.add(assigned[i] >= 0 ? TimeRange.fromStartDuration(starts[i][assigned[i]], durations[i]) : null);
+      }
+      return new GroupSchedule(times, timedOut);
+    }
+  }
+
+  /**
+   * The search of one branch, with its own record of which candidates are still possible.
+   */
+  private static final class Search {
+    private static final int UNPLACED = -1;
+
+    private final Problem problem;
+    private final int branch;
+    // The depth at which each candidate was struck, or 0 while it is still possible.
+    private final int[][] struckAt;
+    private final int[] remaining;
+    // The candidate each meeting is placed at, or UNPLACED.
+    final int[] assigned;
+    private int placed;
+    // The most meetings placed at once, and where.
+    final int[] bestAssigned;
+    int bestPlaced;
+    boolean timedOut;
+
+    Search(Problem problem, int branch) {
+      int meetings = problem.starts.length;
+      this.problem = problem;
+      this.branch = branch;
+      this.struckAt = new int[meetings][];
+      this.remaining = new int[meetings];
+      for (int i = 0; i < meetings; i++) {
+        struckAt[i] = new int[problem.starts[i].length];
+        remaining[i] = problem.starts[i].length;
+      }
+      this.assigned = new int[meetings];
+      Arrays.fill(assigned, UNPLACED);
+      this.bestAssigned = assigned.clone();
+    }
+
+    /**
+     * Places every meeting not yet placed, trying candidates in order. Returns {@code true} if they
+     * all were placed, leaving them placed.
+     */
+    boolean solve(int depth) {
+      if (shouldStop()) {
+        return false;
+      }
+      int meeting = pickMeeting();
+      if (meeting < 0) {
+        return true;
+      }
+      for (int k = 0; k < problem.starts[meeting].length; k++) {
+        if (struckAt[meeting][k] != 0) {
+          continue;
+        }
+        if (place(meeting, k, depth) && solve(depth + 1)) {
+          return true;
+        }
+        unplace(meeting, depth);
+        if (shouldStop()) {
+          return false;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Returns the meeting with the fewest candidates left that is not placed yet but still has
+     * candidates, or -1 if there is none. Meetings that never had a candidate are left out.
+     */
+    int pickMeeting() {
+      int best = -1;
+      for (int i = 0; i < assigned.length; i++) {
+        if (assigned[i] == UNPLACED && problem.starts[i].length > 0
+            && (best < 0 || remaining[i] < remaining[best])) {
+          best = i;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Places {@code meeting} at its {@code k}th candidate and strikes the candidates of conflicting
+     * meetings that it overlaps. Returns {@code false} if one of them has no candidates left.
+     */
+    boolean place(int meeting, int k, int depth) {
+      assigned[meeting] = k;
+      placed++;
+      if (placed > bestPlaced) {
+        bestPlaced = placed;
+        System.arraycopy(assigned, 0, bestAssigned, 0, assigned.length);
+      }
+
+      int start = problem.starts[meeting][k];
+      for (int other = 0; other < assigned.length; other++) {
+        if (!problem.conflicts[meeting][other] || assigned[other] != UNPLACED) {
+          continue;
+        }
+        int[] starts = problem.starts[other];
+        for (int c = 0; c < starts.length; c++) {
+          if (struckAt[other][c] == 0 && problem.overlaps(meeting, start, other, starts[c])) {
+            struckAt[other][c] = depth;
+            remaining[other]--;
+          }
+        }
+        if (remaining[other] == 0 && starts.length > 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Takes back the meeting placed at {@code depth} and restores the candidates it struck.
+     */
+    void unplace(int meeting, int depth) {
+      assigned[meeting] = UNPLACED;
+      placed--;
+      for (int other = 0; other < assigned.length; other++) {
+        if (!problem.conflicts[meeting][other] || assigned[other] != UNPLACED) {
+          continue;
+        }
+        for (int c = 0; c < struckAt[other].length; c++) {
+          if (struckAt[other][c] == depth) {
+            struckAt[other][c] = 0;
+            remaining[other]++;
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns {@code true} if the budget ran out or a branch that comes first already succeeded.
+     */
+    private boolean shouldStop() {
+      if (problem.solvedBranch.get() < branch) {
+        return true;
+      }
+      if (System.nanoTime() - problem.deadline >= 0) {
+        timedOut = true;
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Searches the branches that start by placing meeting {@code first} at each of its candidates
+   * from {@code from} up to {@code to}, forking when there are several.
+   */
+  private static final class Branches extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final Problem problem;
+    private final int first;
+    private final Search[] searches;
+    private final int from;
+    private final int to;
+    private final boolean parallel;
+
+    Branches(Problem problem, int first, Search[] searches, int from, int to, boolean parallel) {
+      this.problem = problem;
+      this.first = first;
+      this.searches = searches;
+      this.from = from;
+      this.to = to;
+      this.parallel = parallel;
+    }
+
+    @Override
+    protected void compute() {
+      if (!parallel || to - from == 1) {
+        for (int k = from; k < to && problem.solvedBranch.get() > k; k++) {
+          Search search = new Search(problem, k);
+          searches[k] = search;
+          // Depth 1 holds the first meeting, so a struck candidate is never marked 0.
+          if (search.place(first, k, 1) && search.solve(2)) {
+            problem.solved(k);
+          }
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new Branches(problem, first, searches, from, middle, true),
+          new Branches(problem, first, searches, middle, to, true));
+    }
+  }
+}
@@ -0,0 +1,147 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The windows of time a meeting may be scheduled in, such as a single day or the working hours of
+ * every day in a week. Windows are kept sorted and never overlap; windows that touch are merged, so a
+ * meeting may run from one into the next. Multi-day horizons use minutes counted from the start of
+ * 1970-01-01 (see {@link TimeRange#startOfEpochDay}). Horizons are read-only.
+ */
+public final class Horizon {
+  /** A horizon covering a single day, from {@code TimeRange.START_OF_DAY} to the end of the day. */
+  public static final Horizon WHOLE_DAY = new Horizon(Arrays.asList(TimeRange.WHOLE_DAY));
+
+  private final List<TimeRange> windows;
+  private final TimeRange span;
+  private final int longestWindow;
+
+  private Horizon(List<TimeRange> windows) {
+    this.windows = Collections.unmodifiableList(windows);
+    this.span = TimeRange.fromStartEnd(windows.get(0).start(), windows.get(windows.size() - 1).end(), false);
+
+    int longest = 0;
+    for (TimeRange window : windows) {
+      longest = Math.max(longest, window.duration());
+    }
+    this.longestWindow = longest;
+  }
+
+  /**
+   * Creates a horizon from any collection of windows, which may overlap and be in any order.
+   *
+   * @param windows The windows to schedule in. Must be non-null and contain at least one window
+   *     that is not empty.
+   */
+  public static Horizon of(Collection<TimeRange> windows) {
+    if (windows == null) {
+      throw new IllegalArgumentException("windows cannot be null");
+    }
+
+    List<TimeRange> sorted = new ArrayList<>();
+    for (TimeRange window : windows) {
+      if (window.duration() > 0) {
+        sorted.add(window);
+      }
+    }
+    if (sorted.isEmpty()) {
+      throw new IllegalArgumentException("a horizon needs at least one window that is not empty");
+    }
+    Collections.sort(sorted, TimeRange.ORDER_BY_START);
+
+    List<TimeRange> merged = new ArrayList<>();
+    int start = sorted.get(0).start();
+    int end = sorted.get(0).end();
+    for (TimeRange window : sorted) {
+      if (window.start() > end) {
+        merged.add(TimeRange.fromStartEnd(start, end, false));
+        start = window.start();
+      }
+      end = Math.max(end, window.end());
+    }
+    merged.add(TimeRange.fromStartEnd(start, end, false));
+    return new Horizon(merged);
+  }
+
+  /**
+   * Creates a horizon with one window per day for {@code days} consecutive days, such as the working
+   * hours of a week. Only one range is stored per day, however long the horizon is.
+   *
+   * @param firstEpochDay The first day, counted in days since 1970-01-01.
+   * @param days The number of days. Must be positive.
+   * @param dayStart The minute of the day each window starts at.
+   * @param dayEnd The minute of the day each window ends at, exclusive. Must come after
+   *     {@code dayStart} and be no later than the end of the day.
+   */
+  public static Horizon ofDays(int firstEpochDay, int days, int dayStart, int dayEnd) {
+    if (days <= 0) {
+      throw new IllegalArgumentException("days must be positive");
+    }
+
+    if (dayStart < TimeRange.START_OF_DAY || dayEnd > TimeRange.MINUTES_PER_DAY
+        || dayStart >= dayEnd) {
+      throw new IllegalArgumentException("each day's window must fall within the day");
+    }
+
+    List<TimeRange> windows = new ArrayList<>(days);
+    for (int day = firstEpochDay; day < firstEpochDay + days; day++) {
+      int midnight = TimeRange.startOfEpochDay(day);
+      windows.add(TimeRange.fromStartEnd(midnight + dayStart, midnight + dayEnd, false));
+    }
+    return of(windows);
+  }
+
+  /**
+   * Returns the windows of this horizon, sorted by start time.
+   */
+  public List<TimeRange> getWindows() {
+    return windows;
+  }
+
+  /**
+   * Returns the range from the start of the first window to the end of the last.
+   */
+  public TimeRange getSpan() {
+    return span;
+  }
+
+  /**
+   * Returns the duration of the longest window. No meeting longer than this can fit.
+   */
+  public int getLongestWindow() {
+    return longestWindow;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof Horizon && windows.equals(((Horizon) other).windows);
+  }
+
+  @Override
+  public int hashCode() {
+    return windows.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "Horizon: " + windows;
+  }
+}
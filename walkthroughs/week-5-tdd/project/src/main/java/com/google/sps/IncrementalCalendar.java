@@ -0,0 +1,327 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A calendar that keeps everyone's availability up to date as events are added and removed, so
+ * free times can be found without rebuilding anything from the full list of events.
+ *
+ * <p>Each person has a coverage map: a sorted map from every time at which the number of events
+ * they are in changes, to that number. Adding or removing an event updates the boundaries it
+ * touches, which costs O(log n + k) for a person with n boundaries, k of which fall inside the
+ * event. That is O(log n) unless the person is double-booked. Reading a person's busy times within
+ * a span starts with one O(log n) lookup. Events that take no time at all are kept apart, as points
+ * that block any meeting spanning them.
+ *
+ * <p>The calendar is safe to use from multiple threads. Each read sees a consistent view of one
+ * person's calendar; use {@link #getFreeTimes} for a view that is consistent across people.
+ */
+public final class IncrementalCalendar implements BusySchedule {
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // How many copies of each event have been added.
+  private final Map<Event, Integer> events = new HashMap<>();
+  private int eventCount;
+
+  // Indexed by attendee id. People without any events map to null.
+  private final List<TreeMap<Integer, Integer>> coverage = new ArrayList<>();
+  // Indexed by attendee id: how many zero-length events each person has at each minute. People
+  // without any map to null.
+  private final List<TreeMap<Integer, Integer>> points = new ArrayList<>();
+
+  private long version;
+
+  public IncrementalCalendar() {}
+
+  /**
+   * Creates a calendar holding {@code events}.
+   */
+  public IncrementalCalendar(Collection<Event> events) {
+    addEvents(events);
+  }
+
+  /**
+   * Adds an event. Adding the same event twice books its attendees twice, and it then needs to be
+   * removed twice.
+   */
+  public void addEvent(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    lock.writeLock().lock();
+    try {
+      add(event);
+      version++;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds a batch of events at once. Readers see either none of them or all of them, and the lock is
+   * only taken once, which makes loading many events much cheaper.
+   */
+  public void addEvents(Collection<Event> batch) {
+    for (Event event : batch) {
+      if (event == null) {
+        throw new IllegalArgumentException("events cannot be null");
+      }
+    }
+
+    lock.writeLock().lock();
+    try {
+      for (Event event : batch) {
+        add(event);
+      }
+      version++;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes one copy of an event. Returns {@code false} if the calendar did not hold the event.
+   */
+  public boolean removeEvent(Event event) {
+    lock.writeLock().lock();
+    try {
+      Integer copies = events.get(event);
+      if (copies == null) {
+        return false;
+      }
+      if (copies == 1) {
+        events.remove(event);
+      } else {
+        events.put(event, copies - 1);
+      }
+      eventCount--;
+      for (int person : event.getAttendeeIds()) {
+        book(person, event.getWhen(), -1);
+      }
+      version++;
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a copy of every event in the calendar, in no particular order.
+   */
+  public List<Event> getEvents() {
+    lock.readLock().lock();
+    try {
+      List<Event> copy = new ArrayList<>(eventCount);
+      for (Map.Entry<Event, Integer> entry : events.entrySet()) {
+        for (int i = 0; i < entry.getValue(); i++) {
+          copy.add(entry.getKey());
+        }
+      }
+      return copy;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of events in the calendar.
+   */
+  public int getEventCount() {
+    lock.readLock().lock();
+    try {
+      return eventCount;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a number that goes up every time an event is added or removed, so callers can tell
+   * whether anything they computed from the calendar is out of date.
+   */
+  public long getVersion() {
+    lock.readLock().lock();
+    try {
+      return version;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the times within {@code horizon}, at least {@code minDuration} minutes long, when every
+   * one of {@code attendees} is free. No event changes while the times are being found.
+   */
+  public Collection<TimeRange> getFreeTimes(
+      Collection<String> attendees, int minDuration, Horizon horizon) {
+    lock.readLock().lock();
+    try {
+      return new FindMeetingQuery().query(this, new MeetingRequest(attendees, minDuration), horizon);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void collectBusyTimes(int attendeeId, int from, int to, RangeBuffer out) {
+    lock.readLock().lock();
+    try {
+      if (attendeeId < 0 || attendeeId >= coverage.size()) {
+        return;
+      }
+      TreeMap<Integer, Integer> times = coverage.get(attendeeId);
+
+      // Points only matter strictly inside the span; one at either end can't split it. Each is
+      // reported as an empty range unless it falls within or at the edge of a busy range.
+      Iterator<Integer> pointsInSpan = null;
+      if (points.get(attendeeId) != null && from < to) {
+        pointsInSpan = points.get(attendeeId).subMap(from, false, to, false).keySet().iterator();
+      }
+      int point = nextPoint(pointsInSpan);
+
+      if (times != null) {
+        // Start at the boundary in force at {@code from}, so a range that began earlier is included.
+        Integer first = times.floorKey(from);
+        Iterator<Map.Entry<Integer, Integer>> boundaries =
+            times.tailMap(first == null ? from : first, true).entrySet().iterator();
+
+        int busyFrom = 0;
+        boolean busy = false;
+        while (boundaries.hasNext()) {
+          Map.Entry<Integer, Integer> boundary = boundaries.next();
+          if (!busy && boundary.getKey() >= to) {
+            break;
+          }
+          if (boundary.getValue() > 0 && !busy) {
+            busyFrom = boundary.getKey();
+            busy = true;
+          } else if (boundary.getValue() == 0 && busy) {
+            int busyTo = boundary.getKey();
+            for (; point < busyFrom; point = nextPoint(pointsInSpan)) {
+              out.add(point, point);
+            }
+            for (; point <= busyTo; point = nextPoint(pointsInSpan)) {}
+            out.add(busyFrom, busyTo);
+            busy = false;
+          }
+        }
+      }
+      for (; point != Integer.MAX_VALUE; point = nextPoint(pointsInSpan)) {
+        out.add(point, point);
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void add(Event event) {
+    Integer copies = events.get(event);
+    events.put(event, copies == null ? 1 : copies + 1);
+    eventCount++;
+    for (int person : event.getAttendeeIds()) {
+      while (coverage.size() <= person) {
+        coverage.add(null);
+        points.add(null);
+      }
+      book(person, event.getWhen(), 1);
+    }
+  }
+
+  /**
+   * Adds {@code delta} to the number of events {@code person} has at {@code when}, dropping their
+   * maps once they are empty.
+   */
+  private void book(int person, TimeRange when, int delta) {
+    // An empty range doesn't cover any minutes, so it is counted as a point instead.
+    List<TreeMap<Integer, Integer>> maps = when.duration() > 0 ? coverage : points;
+    TreeMap<Integer, Integer> times = maps.get(person);
+    if (times == null) {
+      times = new TreeMap<>();
+      maps.set(person, times);
+    }
+    if (when.duration() > 0) {
+      book(times, when, delta);
+    } else {
+      int count = times.containsKey(when.start()) ? times.get(when.start()) + delta : delta;
+      if (count == 0) {
+        times.remove(when.start());
+      } else {
+        times.put(when.start(), count);
+      }
+    }
+    if (times.isEmpty()) {
+      maps.set(person, null);
+    }
+  }
+
+  /**
+   * Returns the next point from {@code points}, or {@code Integer.MAX_VALUE} once there are none.
+   */
+  private static int nextPoint(Iterator<Integer> points) {
+    return points != null && points.hasNext() ? points.next() : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Adds {@code delta} to the number of events covering every minute of {@code when}, which must not
+   * be empty.
+   */
+  private static void book(TreeMap<Integer, Integer> times, TimeRange when, int delta) {
+    split(times, when.start());
+    split(times, when.end());
+    for (Map.Entry<Integer, Integer> boundary
+        : times.subMap(when.start(), true, when.end(), false).entrySet()) {
+      boundary.setValue(boundary.getValue() + delta);
+    }
+    // Everything inside the range changed by the same amount, so only its edges can now match their
+    // neighbours.
+    coalesce(times, when.end());
+    coalesce(times, when.start());
+  }
+
+  /**
+   * Makes sure there is a boundary at {@code point}, without changing any coverage.
+   */
+  private static void split(TreeMap<Integer, Integer> times, int point) {
+    if (!times.containsKey(point)) {
+      Map.Entry<Integer, Integer> before = times.floorEntry(point);
+      times.put(point, before == null ? 0 : before.getValue());
+    }
+  }
+
+  /**
+   * Removes the boundary at {@code point} if the coverage doesn't actually change there.
+   */
+  private static void coalesce(TreeMap<Integer, Integer> times, int point) {
+    Integer value = times.get(point);
+    if (value == null) {
+      return;
+    }
+    Map.Entry<Integer, Integer> before = times.lowerEntry(point);
+    if ((before == null ? 0 : before.getValue()) == value) {
+      times.remove(point);
+    }
+  }
+}
@@ -0,0 +1,58 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A range of meeting times together with the resources that are free for all of it, one from each
+ * of the request's resource pools, in the order the pools were added. Any meeting of the requested
+ * length placed entirely within the range can use those resources. Options are read-only.
+ */
+public final class MeetingOption {
+  private final TimeRange when;
+  private final List<Resource> resources;
+
+  MeetingOption(TimeRange when, List<Resource> resources) {
+    this.when = when;
+    this.resources = Collections.unmodifiableList(resources);
+  }
+
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  public List<Resource> getResources() {
+    return resources;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof MeetingOption && when.equals(((MeetingOption) other).when)
+        && resources.equals(((MeetingOption) other).resources);
+  }
+
+  @Override
+  public int hashCode() {
+    return when.hashCode() * 31 + resources.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "MeetingOption: " + when + " with " + resources;
+  }
+}
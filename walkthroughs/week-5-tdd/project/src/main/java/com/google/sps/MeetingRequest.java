@@ -18,14 +18,27 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 public final class MeetingRequest {
   // All the people that should be attending this new meeting. Use a set to avoid duplicates.
   private final Collection<String> attendees = new HashSet<>();
 
-  // Some optional attendees for this new meeting. Use a set to avoid duplicates.
-  private final Collection<String> optional_attendees = new HashSet<>();
+  // Some optional attendees for this new meeting. Use a set to avoid duplicates, kept in the order
+  // they were added so a query that runs out of time counts the earliest ones.
+  private final Collection<String> optional_attendees = new LinkedHashSet<>();
+
+  // How much each optional attendee matters, for those who don't have the default weight of 1. May
+  // be null for requests read from JSON without weights.
+  private Map<String, Integer> optional_attendee_weights = new HashMap<>();
+
+  // The pools the meeting needs one resource from each of, holding only resources that are big
+  // enough. May be null for requests read from JSON without resources.
+  private List<ResourcePool> resource_pools = new ArrayList<>();
 
   // The duration of the meeting in minutes.
   private final long duration;
@@ -43,7 +56,8 @@ public final class MeetingRequest {
   }
 
   /**
-   * Returns a read-only copy of the people who are optional to attend this meeting.
+   * Returns a read-only copy of the people who are optional to attend this meeting, in the order
+   * they were added.
    */
   public Collection<String> getOptionalAttendees() {
     return Collections.unmodifiableCollection(optional_attendees);
@@ -53,8 +67,99 @@ public final class MeetingRequest {
    * Adds one optional attendee for the meeting.
    */
   public void addOptionalAttendee(String attendee) {
-    if (!attendees.contains(attendee)) {
-      optional_attendees.add(attendee);
+    addOptionalAttendee(attendee, 1);
+  }
+
+  /**
+   * Adds one optional attendee for the meeting who counts {@code weight} times as much as an
+   * attendee with the default weight of 1, so meeting times are picked to maximize the total
+   * weight of the optional attendees who can join. Adding someone again replaces their weight.
+   */
+  public void addOptionalAttendee(String attendee, int weight) {
+    if (weight <= 0) {
+      throw new IllegalArgumentException("weight must be positive");
+    }
+    if (attendees.contains(attendee)) {
+      return;
+    }
+    optional_attendees.add(attendee);
+    if (optional_attendee_weights == null) {
+      optional_attendee_weights = new HashMap<>();
+    }
+    if (weight == 1) {
+      optional_attendee_weights.remove(attendee);
+    } else {
+      optional_attendee_weights.put(attendee, weight);
+    }
+  }
+
+  /**
+   * Returns the weight of an optional attendee, which is 1 unless a different one was given.
+   */
+  public int getOptionalAttendeeWeight(String attendee) {
+    Integer weight = optional_attendee_weights == null ? null : optional_attendee_weights.get(attendee);
+    return weight == null ? 1 : weight;
+  }
+
+  /**
+   * Makes the meeting need one resource from {@code pool} with a capacity of at least {@code
+   * minCapacity}, such as a room with enough seats for everyone.
+   */
+  public void addResourcePool(ResourcePool pool, int minCapacity) {
+    if (pool == null) {
+      throw new IllegalArgumentException("pool cannot be null");
+    }
+    if (resource_pools == null) {
+      resource_pools = new ArrayList<>();
+    }
+    resource_pools.add(pool.withCapacity(minCapacity));
+  }
+
+  /**
+   * Returns a read-only copy of the pools the meeting needs a resource from, each holding only the
+   * resources with enough capacity, in the order they were added.
+   */
+  public List<ResourcePool> getResourcePools() {
+    if (resource_pools == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(resource_pools);
+  }
+
+  int getAttendeeCount() {
+    return attendees.size();
+  }
+
+  int getOptionalAttendeeCount() {
+    return optional_attendees.size();
+  }
+
+  /**
+   * Writes the ids of the required attendees in the shared {@code AttendeeRegistry} into {@code
+   * ids}, which must have room for all of them. People who have never been seen on a calendar get
+   * {@code AttendeeRegistry.UNKNOWN}.
+   */
+  void copyAttendeeIds(int[] ids) {
+    copyIds(attendees, ids);
+  }
+
+  /**
+   * Writes the ids of the optional attendees in the shared {@code AttendeeRegistry} into {@code
+   * ids}, and their weights into the same positions of {@code weights}. Both must have room for all
+   * of them.
+   *
+   * @throws IllegalArgumentException if a weight is not positive, which only a request read from
+   *     JSON can have.
+   */
+  void copyOptionalAttendeeIds(int[] ids, int[] weights) {
+    copyIds(optional_attendees, ids);
+    int i = 0;
+    for (String person : optional_attendees) {
+      int weight = getOptionalAttendeeWeight(person);
+      if (weight <= 0) {
+        throw new IllegalArgumentException("weight of " + person + " must be positive");
+      }
+      weights[i++] = weight;
     }
   }
 
@@ -64,4 +169,14 @@ public final class MeetingRequest {
   public long getDuration() {
     return duration;
   }
+
+  private static void copyIds(Collection<String> people, int[] ids) {
+    // Requests come from users, so look names up rather than interning them to keep unknown names
+    // from growing the registry.
+    AttendeeRegistry registry = AttendeeRegistry.shared();
+    int i = 0;
+    for (String person : people) {
+      ids[i++] = registry.lookup(person);
+    }
+  }
 }
@@ -0,0 +1,75 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+/**
+ * A concrete meeting time suggested by {@code FindMeetingQuery.suggest}, with the total weight of the
+ * optional attendees who can join it and the score it was ranked by. Suggestions are read-only.
+ */
+public final class MeetingSuggestion {
+  private final TimeRange when;
+  private final int optionalAttendeeWeight;
+  private final double score;
+
+  MeetingSuggestion(TimeRange when, int optionalAttendeeWeight, double score) {
+    this.when = when;
+    this.optionalAttendeeWeight = optionalAttendeeWeight;
+    this.score = score;
+  }
+
+  /**
+   * Returns when the meeting would take place.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns the total weight of the optional attendees who could join. With the default weight of
+   * 1, this is how many of them could join.
+   */
+  public int getOptionalAttendeeWeight() {
+    return optionalAttendeeWeight;
+  }
+
+  /**
+   * Returns the score given by the {@code SuggestionPolicy}. Higher is better.
+   */
+  public double getScore() {
+    return score;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof MeetingSuggestion)) {
+      return false;
+    }
+    MeetingSuggestion suggestion = (MeetingSuggestion) other;
+    return when.equals(suggestion.when) && optionalAttendeeWeight == suggestion.optionalAttendeeWeight
+        && Double.compare(score, suggestion.score) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return when.hashCode() * 31 + optionalAttendeeWeight;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Suggestion: %s with optional attendee weight %d, score %s", when,
+        optionalAttendeeWeight, score);
+  }
+}
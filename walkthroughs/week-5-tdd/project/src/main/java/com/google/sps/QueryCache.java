@@ -0,0 +1,194 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the answers to recent meeting requests, so a request that comes in again before the
+ * calendar changes is answered without running the query.
+ *
+ * <p>Requests are keyed by a canonical form that ignores the order attendees were listed in, plus
+ * the version of the calendar the answer came from. Once a newer version is seen, answers for older
+ * versions can never be used again and are dropped. Otherwise, the least recently used answer is
+ * evicted when the cache is full. The cache is safe to use from multiple threads.
+ */
+public final class QueryCache {
+  private final int capacity;
+  private final LinkedHashMap<Key, List<TimeRange>> answers;
+  private long latestVersion = Long.MIN_VALUE;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * @param capacity The most answers to keep. Must be positive.
+   */
+  public QueryCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+
+    this.capacity = capacity;
+    // Access order makes iteration start from the least recently used entry.
+    this.answers = new LinkedHashMap<Key, List<TimeRange>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, List<TimeRange>> eldest) {
+        if (size() > QueryCache.this.capacity) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the answer to {@code request} against version {@code version} of the calendar, or
+   * {@code null} if it isn't cached.
+   */
+  public List<TimeRange> get(MeetingRequest request, long version) {
+    Key key = new Key(request, version);
+    List<TimeRange> answer;
+    synchronized (answers) {
+      answer = answers.get(key);
+    }
+    (answer == null ? misses : hits).incrementAndGet();
+    return answer;
+  }
+
+  /**
+   * Caches the answer to {@code request} against version {@code version} of the calendar. Answers
+   * for versions older than the newest one seen are not kept.
+   */
+  public void put(MeetingRequest request, long version, Collection<TimeRange> answer) {
+    Key key = new Key(request, version);
+    List<TimeRange> copy = Collections.unmodifiableList(new ArrayList<>(answer));
+    synchronized (answers) {
+      if (version < latestVersion) {
+        return;
+      }
+      if (version > latestVersion) {
+        dropOlderThan(version);
+        latestVersion = version;
+      }
+      answers.put(key, copy);
+    }
+  }
+
+  /**
+   * Returns the number of lookups that found an answer.
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * Returns the number of lookups that found nothing.
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Returns the number of answers dropped, either to make room or because the calendar changed.
+   */
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * Returns the number of answers currently cached.
+   */
+  public int size() {
+    synchronized (answers) {
+      return answers.size();
+    }
+  }
+
+  private void dropOlderThan(long version) {
+    Iterator<Key> keys = answers.keySet().iterator();
+    while (keys.hasNext()) {
+      if (keys.next().version < version) {
+        keys.remove();
+        evictions.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * A request in canonical form: attendees sorted by name, optional attendees paired with their
+   * weights, and resource pools in the order they were added.
+   */
+  private static final class Key {
+    private final List<String> attendees;
+    private final List<String> optionalAttendees;
+    private final List<Integer> optionalWeights;
+    private final List<ResourcePool> resourcePools;
+    private final long duration;
+    private final long version;
+    private final int hash;
+
+    Key(MeetingRequest request, long version) {
+      this.attendees = sorted(request.getAttendees());
+      this.optionalAttendees = sorted(request.getOptionalAttendees());
+      this.optionalWeights = new ArrayList<>(optionalAttendees.size());
+      for (String person : optionalAttendees) {
+        optionalWeights.add(request.getOptionalAttendeeWeight(person));
+      }
+      this.resourcePools = new ArrayList<>(request.getResourcePools());
+      this.duration = request.getDuration();
+      this.version = version;
+
+      int h = attendees.hashCode();
+      h = h * 31 + optionalAttendees.hashCode();
+      h = h * 31 + optionalWeights.hashCode();
+      h = h * 31 + resourcePools.hashCode();
+      h = h * 31 + Long.hashCode(duration);
+      this.hash = h * 31 + Long.hashCode(version);
+    }
+
+    private static List<String> sorted(Collection<String> people) {
+      List<String> sorted = new ArrayList<>(people);
+      Collections.sort(sorted);
+      return sorted;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return hash == key.hash && duration == key.duration && version == key.version
+          && attendees.equals(key.attendees) && optionalAttendees.equals(key.optionalAttendees)
+          && optionalWeights.equals(key.optionalWeights) && resourcePools.equals(key.resourcePools);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
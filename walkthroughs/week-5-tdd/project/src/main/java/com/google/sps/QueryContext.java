@@ -0,0 +1,228 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+/**
+ * Scratch space for {@code FindMeetingQuery}, kept between queries so that once its buffers have
+ * grown to fit the calendar, a query allocates nothing but the list of times it returns. A context
+ * is not thread-safe: use one per thread, or let {@code FindMeetingQuery} keep one per thread for
+ * you.
+ */
+public final class QueryContext {
+  private static final int INITIAL_CAPACITY = 64;
+
+  // The request's attendees, as ids in the shared {@code AttendeeRegistry}.
+  int[] attendeeIds = new int[INITIAL_CAPACITY];
+  int attendeeCount;
+  int[] optionalIds = new int[INITIAL_CAPACITY];
+  int[] optionalWeights = new int[INITIAL_CAPACITY];
+  int optionalCount;
+  int optionalWeightTotal;
+
+  // When the query has to stop looking at optional attendees, as a System.nanoTime() value, and how
+  // many of them it got through.
+  private long deadline;
+  private boolean hasDeadline;
+  int optionalConsidered;
+  boolean partial;
+
+  // The required attendees' busy ranges, packed by {@link #pack} so they sort by start time.
+  long[] busy = new long[INITIAL_CAPACITY];
+  int busyCount;
+
+  // The times when every required attendee is free, sorted and never overlapping.
+  int[] openStart = new int[INITIAL_CAPACITY];
+  int[] openEnd = new int[INITIAL_CAPACITY];
+  int openCount;
+
+  // Endpoints of the intervals of start times swept by {@code AttendanceSweep}.
+  long[] endpoints = new long[INITIAL_CAPACITY];
+  int endpointCount;
+
+  // Stretches of start times that work for every required attendee, with the total weight of the
+  // optional attendees that could join a meeting starting there.
+  int[] runStart = new int[INITIAL_CAPACITY];
+  int[] runEnd = new int[INITIAL_CAPACITY];
+  int[] runScore = new int[INITIAL_CAPACITY];
+  int runCount;
+
+  // The working hours of the people in the request, or null if everyone is always available.
+  WorkingHoursDirectory workingHours;
+
+  // The distinct working hours of the mandatory attendees, so each is applied once.
+  WorkingHours[] profiles = new WorkingHours[8];
+  int profileCount;
+
+  // The horizon's span, which working hours are compiled for so that every query over it shares
+  // them. Set when the openings are found.
+  int spanStart;
+  int spanEnd;
+
+  // The busy times of the one person being looked at.
+  final RangeBuffer personBusy = new RangeBuffer();
+
+  // The mandatory attendees' busy slots, for the bitmap engine.
+  final AvailabilityBitmap bitmap = new AvailabilityBitmap();
+
+  /**
+   * Loads the ids of the request's attendees, who are available around the clock.
+   */
+  void load(MeetingRequest request) {
+    load(request, null);
+  }
+
+  /**
+   * Loads the ids of the request's attendees, whose working hours are in {@code workingHours} if
+   * it is not null.
+   */
+  void load(MeetingRequest request, WorkingHoursDirectory workingHours) {
+    this.workingHours = workingHours;
+    profileCount = 0;
+
+    attendeeCount = request.getAttendeeCount();
+    if (attendeeIds.length < attendeeCount) {
+      attendeeIds = new int[Math.max(attendeeCount, attendeeIds.length * 2)];
+    }
+    request.copyAttendeeIds(attendeeIds);
+
+    optionalCount = request.getOptionalAttendeeCount();
+    if (optionalIds.length < optionalCount) {
+      optionalIds = new int[Math.max(optionalCount, optionalIds.length * 2)];
+      optionalWeights = new int[optionalIds.length];
+    }
+    request.copyOptionalAttendeeIds(optionalIds, optionalWeights);
+
+    long total = 0;
+    for (int i = 0; i < optionalCount; i++) {
+      total += optionalWeights[i];
+    }
+    if (total > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("optional attendee weights add up to more than " + Integer.MAX_VALUE);
+    }
+    optionalWeightTotal = (int) total;
+
+    hasDeadline = false;
+    optionalConsidered = optionalCount;
+    partial = false;
+    busyCount = 0;
+    openCount = 0;
+    endpointCount = 0;
+    runCount = 0;
+  }
+
+  /**
+   * Makes the current query stop looking at more optional attendees once {@code System.nanoTime()}
+   * reaches {@code deadline}.
+   */
+  void setDeadline(long deadline) {
+    this.deadline = deadline;
+    this.hasDeadline = true;
+  }
+
+  boolean pastDeadline() {
+    return hasDeadline && System.nanoTime() - deadline >= 0;
+  }
+
+  /**
+   * Returns the total weight of the optional attendees the query got through.
+   */
+  int consideredWeight() {
+    if (optionalConsidered == optionalCount) {
+      return optionalWeightTotal;
+    }
+    int total = 0;
+    for (int i = 0; i < optionalConsidered; i++) {
+      total += optionalWeights[i];
+    }
+    return total;
+  }
+
+  /**
+   * Returns the working hours of the person with id {@code attendeeId}, or null if they have none.
+   */
+  WorkingHours workingHoursOf(int attendeeId) {
+    return workingHours == null ? null : workingHours.get(attendeeId);
+  }
+
+  /**
+   * Remembers {@code hours} as one of the mandatory attendees' working hours. Returns {@code false}
+   * if they already were.
+   */
+  boolean addProfile(WorkingHours hours) {
+    for (int i = 0; i < profileCount; i++) {
+      if (profiles[i] == hours) {
+        return false;
+      }
+    }
+    if (profileCount == profiles.length) {
+      profiles = Arrays.copyOf(profiles, profileCount * 2);
+    }
+    profiles[profileCount++] = hours;
+    return true;
+  }
+
+  void addBusy(int start, int end) {
+    if (busyCount == busy.length) {
+      busy = Arrays.copyOf(busy, busyCount * 2);
+    }
+    busy[busyCount++] = pack(start, end);
+  }
+
+  void addOpening(int start, int end) {
+    if (openCount == openStart.length) {
+      openStart = Arrays.copyOf(openStart, openCount * 2);
+      openEnd = Arrays.copyOf(openEnd, openCount * 2);
+    }
+    openStart[openCount] = start;
+    openEnd[openCount] = end;
+    openCount++;
+  }
+
+  void addEndpoint(long endpoint) {
+    if (endpointCount == endpoints.length) {
+      endpoints = Arrays.copyOf(endpoints, endpointCount * 2);
+    }
+    endpoints[endpointCount++] = endpoint;
+  }
+
+  void addRun(int start, int end, int score) {
+    if (runCount == runStart.length) {
+      runStart = Arrays.copyOf(runStart, runCount * 2);
+      runEnd = Arrays.copyOf(runEnd, runCount * 2);
+      runScore = Arrays.copyOf(runScore, runCount * 2);
+    }
+    runStart[runCount] = start;
+    runEnd[runCount] = end;
+    runScore[runCount] = score;
+    runCount++;
+  }
+
+  /**
+   * Packs a range into a long that sorts by start time.
+   */
+  static long pack(int start, int end) {
+    return ((long) start << 32) | (end & 0xFFFFFFFFL);
+  }
+
+  static int packedStart(long range) {
+    return (int) (range >> 32);
+  }
+
+  static int packedEnd(long range) {
+    return (int) range;
+  }
+}
@@ -0,0 +1,64 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The meeting times found by a {@code FindMeetingQuery} that was given a time budget, and whether
+ * the budget ran out before every optional attendee was looked at. Results are read-only.
+ */
+public final class QueryResult {
+  private final List<TimeRange> times;
+  private final boolean partial;
+  private final int optionalAttendeesConsidered;
+
+  QueryResult(List<TimeRange> times, boolean partial, int optionalAttendeesConsidered) {
+    this.times = Collections.unmodifiableList(times);
+    this.partial = partial;
+    this.optionalAttendeesConsidered = optionalAttendeesConsidered;
+  }
+
+  /**
+   * Returns the meeting times found, sorted by start time. Every mandatory attendee is free for all
+   * of them, even when the result is partial.
+   */
+  public List<TimeRange> getTimes() {
+    return times;
+  }
+
+  /**
+   * Returns {@code true} if the budget ran out, so the times only account for the first {@link
+   * #getOptionalAttendeesConsidered} optional attendees, in the order they were added to the request
+   * or listed in its JSON.
+   */
+  public boolean isPartial() {
+    return partial;
+  }
+
+  /**
+   * Returns how many optional attendees the times account for.
+   */
+  public int getOptionalAttendeesConsidered() {
+    return optionalAttendeesConsidered;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("QueryResult: %s%s", times, partial ? " (partial)" : "");
+  }
+}
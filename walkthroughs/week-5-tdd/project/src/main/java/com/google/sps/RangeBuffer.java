@@ -0,0 +1,68 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ranges stored as two int arrays, so ranges can be passed around and reused
+ * without allocating a {@code TimeRange} for each one. Buffers are not thread-safe.
+ */
+public final class RangeBuffer {
+  private int[] starts = new int[16];
+  private int[] ends = new int[16];
+  private int size;
+
+  /**
+   * Appends the range [{@code start}, {@code end}).
+   */
+  public void add(int start, int end) {
+    if (size == starts.length) {
+      starts = Arrays.copyOf(starts, size * 2);
+      ends = Arrays.copyOf(ends, size * 2);
+    }
+    starts[size] = start;
+    ends[size] = end;
+    size++;
+  }
+
+  /**
+   * Returns the start of range {@code i}.
+   */
+  public int start(int i) {
+    return starts[i];
+  }
+
+  /**
+   * Returns the end of range {@code i}, exclusive.
+   */
+  public int end(int i) {
+    return ends[i];
+  }
+
+  /**
+   * Returns the number of ranges in the buffer.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Removes every range, keeping the memory for reuse.
+   */
+  public void clear() {
+    size = 0;
+  }
+}
@@ -0,0 +1,180 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An event that repeats a fixed number of times at a fixed interval, such as a weekly standup.
+ * Occurrences are never stored: the kth one is worked out from the first, and the ones in a window
+ * are found with one division, so a year of standups costs the same as one until it is read.
+ * Recurring events are considered read-only.
+ */
+public final class RecurringEvent {
+  /** The number of minutes in a week. */
+  public static final int WEEK = 7 * TimeRange.MINUTES_PER_DAY;
+
+  // The first occurrence, which also holds the title and attendees.
+  private final Event first;
+  private final int period;
+  private final int count;
+
+  /**
+   * Creates a new recurring event.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param first The time of the first occurrence. Must be non-null.
+   * @param period The minutes from the start of one occurrence to the start of the next. Must be
+   *     positive.
+   * @param count The number of occurrences. Must be positive, and the last occurrence must end
+   *     within the range of an int.
+   * @param attendees The collection of people attending every occurrence. Must be non-null.
+   */
+  public RecurringEvent(String title, TimeRange first, int period, int count, Collection<String> attendees) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("period must be positive");
+    }
+    if (count <= 0) {
+      throw new IllegalArgumentException("count must be positive");
+    }
+    this.first = new Event(title, first, attendees);
+    if ((long) first.end() + (long) (count - 1) * period > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("the last occurrence ends too late");
+    }
+    this.period = period;
+    this.count = count;
+  }
+
+  /**
+   * Creates an event that takes place at the same time every week for {@code weeks} weeks.
+   */
+  public static RecurringEvent weekly(String title, TimeRange first, int weeks, Collection<String> attendees) {
+    return new RecurringEvent(title, first, WEEK, weeks, attendees);
+  }
+
+  /**
+   * Returns the human-readable name for this event.
+   */
+  public String getTitle() {
+    return first.getTitle();
+  }
+
+  /**
+   * Returns a read-only set of the attendees of every occurrence.
+   */
+  public Set<String> getAttendees() {
+    return first.getAttendees();
+  }
+
+  /**
+   * Returns the minutes from the start of one occurrence to the start of the next.
+   */
+  public int getPeriod() {
+    return period;
+  }
+
+  /**
+   * Returns the number of occurrences.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Returns occurrence {@code k}, counting from 0.
+   */
+  public TimeRange getOccurrence(int k) {
+    if (k < 0 || k >= count) {
+      throw new IllegalArgumentException("no occurrence " + k);
+    }
+    return TimeRange.fromStartDuration(start(k), first.getWhen().duration());
+  }
+
+  /**
+   * Returns the occurrences that overlap {@code window}, in order. They are made one at a time as
+   * the iterator is advanced and are not clipped to the window.
+   */
+  public Iterator<TimeRange> occurrences(TimeRange window) {
+    final int from = firstEndingAfter(window.start());
+    final int to = window.end();
+    return new Iterator<TimeRange>() {
+      private int next = from;
+
+      @Override
+      public boolean hasNext() {
+        return next < count && start(next) < to;
+      }
+
+      @Override
+      public TimeRange next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return getOccurrence(next++);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  int[] getAttendeeIds() {
+    return first.getAttendeeIds();
+  }
+
+  int start(int k) {
+    return first.getWhen().start() + k * period;
+  }
+
+  int end(int k) {
+    return first.getWhen().end() + k * period;
+  }
+
+  /**
+   * Returns the index of the first occurrence that ends after {@code point}, which is {@link
+   * #getCount} if there is none.
+   */
+  int firstEndingAfter(int point) {
+    // end(k) > point  <=>  k > (point - end(0)) / period
+    long k = Math.floorDiv((long) point - first.getWhen().end(), period) + 1;
+    return (int) Math.min(Math.max(k, 0), count);
+  }
+
+  @Override
+  public int hashCode() {
+    return first.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof RecurringEvent)) {
+      return false;
+    }
+    RecurringEvent event = (RecurringEvent) other;
+    return first.equals(event.first) && period == event.period && count == event.count;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("RecurringEvent: %s, %d times every %d minutes from %s", first.getTitle(), count,
+        period, first.getWhen());
+  }
+}
@@ -0,0 +1,169 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds recurring events to another calendar, such as a {@code CalendarIndex} of one-off events.
+ * Occurrences are read lazily from the recurring events, so a query only pays for the occurrences
+ * that fall within the span it asks about, however long the series run. Schedules are read-only,
+ * and safe to share between threads if the calendar they add to is.
+ */
+public final class RecurringSchedule implements BusySchedule {
+  private static final RecurringEvent[] NO_SERIES = new RecurringEvent[0];
+
+  private final BusySchedule base;
+  // The registry ids of everyone in the recurring events, sorted, and the events each attends at
+  // the same position.
+  private final int[] ids;
+  private final RecurringEvent[][] series;
+
+  // Each thread's scratch space for merging. Kept per schedule, so a schedule can add to another
+  // one.
+  private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+    @Override
+    protected Scratch initialValue() {
+      return new Scratch();
+    }
+  };
+
+  private RecurringSchedule(BusySchedule base, int[] ids, RecurringEvent[][] series) {
+    this.base = base;
+    this.ids = ids;
+    this.series = series;
+  }
+
+  /**
+   * Creates a schedule with the busy times of {@code base} and the occurrences of {@code events}.
+   *
+   * @param base The calendar to add to. Must be non-null.
+   * @param events The recurring events to add. Must be non-null.
+   */
+  public static RecurringSchedule of(BusySchedule base, Collection<RecurringEvent> events) {
+    if (base == null) {
+      throw new IllegalArgumentException("base cannot be null");
+    }
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    Map<Integer, List<RecurringEvent>> byPerson = new HashMap<>();
+    for (RecurringEvent event : events) {
+      for (int person : event.getAttendeeIds()) {
+        List<RecurringEvent> attended = byPerson.get(person);
+        if (attended == null) {
+          attended = new ArrayList<>();
+          byPerson.put(person, attended);
+        }
+        attended.add(event);
+      }
+    }
+
+    int[] ids = new int[byPerson.size()];
+    int people = 0;
+    for (int id : byPerson.keySet()) {
+      ids[people++] = id;
+    }
+    Arrays.sort(ids);
+    RecurringEvent[][] series = new RecurringEvent[people][];
+    for (int person = 0; person < people; person++) {
+      series[person] = byPerson.get(ids[person]).toArray(NO_SERIES);
+    }
+    return new RecurringSchedule(base, ids, series);
+  }
+
+  @Override
+  public void collectBusyTimes(int attendeeId, int from, int to, RangeBuffer out) {
+    RecurringEvent[] attended = seriesOf(attendeeId);
+    if (attended.length == 0) {
+      base.collectBusyTimes(attendeeId, from, to, out);
+      return;
+    }
+
+    Scratch space = scratch.get();
+    RangeBuffer busy = space.baseBusy;
+    busy.clear();
+    base.collectBusyTimes(attendeeId, from, to, busy);
+
+    // Merge the other calendar's ranges with each series' occurrences, always taking the one that
+    // starts first. A person is in a handful of series at most, so a scan beats a heap.
+    if (space.next.length < attended.length) {
+      space.next = new int[Math.max(attended.length, space.next.length * 2)];
+    }
+    int[] next = space.next;
+    for (int s = 0; s < attended.length; s++) {
+      next[s] = attended[s].firstEndingAfter(from);
+    }
+    int b = 0;
+    int busyStart = 0;
+    int busyEnd = 0;
+    boolean open = false;
+    while (true) {
+      int pick = -1;
+      int start = b < busy.size() ? busy.start(b) : Integer.MAX_VALUE;
+      int end = b < busy.size() ? busy.end(b) : Integer.MAX_VALUE;
+      for (int s = 0; s < attended.length; s++) {
+        if (next[s] < attended[s].getCount() && attended[s].start(next[s]) < Math.min(start, to)) {
+          pick = s;
+          start = attended[s].start(next[s]);
+          end = attended[s].end(next[s]);
+        }
+      }
+      if (pick >= 0) {
+        next[pick]++;
+      } else if (b < busy.size()) {
+        b++;
+      } else {
+        break;
+      }
+
+      if (open && start <= busyEnd) {
+        busyEnd = Math.max(busyEnd, end);
+      } else {
+        if (open) {
+          out.add(busyStart, busyEnd);
+        }
+        busyStart = start;
+        busyEnd = end;
+        open = true;
+      }
+    }
+    if (open) {
+      out.add(busyStart, busyEnd);
+    }
+  }
+
+  private RecurringEvent[] seriesOf(int attendeeId) {
+    int person = Arrays.binarySearch(ids, attendeeId);
+    return person < 0 ? NO_SERIES : series[person];
+  }
+
+  /**
+   * One thread's buffers for {@link #collectBusyTimes}, grown as needed and then reused.
+   */
+  private static final class Scratch {
+    // The other calendar's busy times.
+    final RangeBuffer baseBusy = new RangeBuffer();
+    // The next occurrence of each series the person attends.
+    int[] next = new int[4];
+  }
+}
@@ -0,0 +1,67 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+/**
+ * Something a meeting needs besides people, such as a room or a projector. A resource is booked the
+ * same way a person is: by listing its name among the attendees of an event. Resources are
+ * read-only.
+ */
+public final class Resource {
+  private final String name;
+  private final int capacity;
+
+  /**
+   * @param name The name the resource is booked under. Must be non-null.
+   * @param capacity How much the resource holds, such as the number of seats in a room. Must be
+   *     positive.
+   */
+  public Resource(String name, int capacity) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+
+    this.name = name;
+    this.capacity = capacity;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof Resource && name.equals(((Resource) other).name)
+        && capacity == ((Resource) other).capacity;
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode() * 31 + capacity;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Resource: %s (%d)", name, capacity);
+  }
+}
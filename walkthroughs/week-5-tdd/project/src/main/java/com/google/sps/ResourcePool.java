@@ -0,0 +1,84 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A group of interchangeable resources, such as the meeting rooms of a building, of which a meeting
+ * needs any one. Pools are read-only.
+ */
+public final class ResourcePool {
+  private final String name;
+  private final List<Resource> resources;
+
+  /**
+   * @param name The name of the pool. Must be non-null.
+   * @param resources The resources in the pool, in the order they should be preferred when more
+   *     than one is free. Must be non-null.
+   */
+  public ResourcePool(String name, Collection<Resource> resources) {
+    if (name == null) {
+      throw new IllegalArgumentException("name cannot be null");
+    }
+    if (resources == null) {
+      throw new IllegalArgumentException("resources cannot be null");
+    }
+
+    this.name = name;
+    this.resources = Collections.unmodifiableList(new ArrayList<>(resources));
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public List<Resource> getResources() {
+    return resources;
+  }
+
+  /**
+   * Returns a pool with the same name holding only the resources with at least {@code minCapacity}.
+   */
+  public ResourcePool withCapacity(int minCapacity) {
+    List<Resource> bigEnough = new ArrayList<>();
+    for (Resource resource : resources) {
+      if (resource.getCapacity() >= minCapacity) {
+        bigEnough.add(resource);
+      }
+    }
+    return new ResourcePool(name, bigEnough);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof ResourcePool && name.equals(((ResourcePool) other).name)
+        && resources.equals(((ResourcePool) other).resources);
+  }
+
+  @Override
+  public int hashCode() {
+    return name.hashCode() * 31 + resources.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "ResourcePool: " + name + " " + resources;
+  }
+}
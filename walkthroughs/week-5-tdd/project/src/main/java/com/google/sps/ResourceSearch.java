@@ -0,0 +1,272 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds meeting times when the people in a request and one resource from each of its pools are free
+ * together.
+ *
+ * <p>The search works on start times rather than meeting times. A free gap [a, b) lets a meeting of
+ * length d start anywhere in [a, b - d], and a start time works for a pool if it works for any one
+ * of the pool's resources. The free start times of every resource are found in parallel, then each
+ * pool's are covered greedily with as few pieces as possible, each piece using one resource that is
+ * free throughout. Intersecting those pieces with the mandatory attendees' start times gives the
+ * openings the attendance sweep ranks the optional attendees over, and the best runs are labelled
+ * with the resources of the pieces they fall in.
+ */
+final class ResourceSearch {
+  // Above this many resources, a scan is split in half and forked.
+  private static final int RESOURCES_PER_TASK = 16;
+
+  private static final Resource[] NO_RESOURCES = new Resource[0];
+
+  private ResourceSearch() {}
+
+  /**
+   * A stretch of start times [start, end), with the resource used from each pool searched so far.
+   */
+  private static final class Piece {
+    final int start;
+    final int end;
+    final Resource[] resources;
+
+    Piece(int start, int end, Resource[] resources) {
+      this.start = start;
+      this.end = end;
+      this.resources = resources;
+    }
+  }
+
+  private static final Comparator<Piece> ORDER_BY_START = new Comparator<Piece>() {
+    @Override
+    public int compare(Piece a, Piece b) {
+      return Integer.compare(a.start, b.start);
+    }
+  };
+
+  /**
+   * Returns the options for a meeting of {@code duration} minutes. The context must hold the loaded
+   * request and the mandatory attendees' openings within {@code span}. If {@code forkJoinPool} is
+   * null the resources are scanned on the calling thread.
+   */
+  static List<MeetingOption> search(BusySchedule calendar, QueryContext context, int duration,
+      List<ResourcePool> pools, TimeRange span, ForkJoinPool forkJoinPool) {
+    List<Piece> starts = new ArrayList<>();
+    for (int i = 0; i < context.openCount; i++) {
+      if (context.openEnd[i] - context.openStart[i] >= duration) {
+        starts.add(new Piece(context.openStart[i], context.openEnd[i] - duration + 1, NO_RESOURCES));
+      }
+    }
+
+    List<Resource> resources = new ArrayList<>();
+    for (ResourcePool pool : pools) {
+      resources.addAll(pool.getResources());
+    }
+    // Filled in place, each slice writing only its own resources' starts.
+    List<List<Piece>> free = new ArrayList<>(Collections.nCopies(resources.size(), (List<Piece>) null));
+    ResourceScan scan =
+        new ResourceScan(calendar, resources, span, duration, free, 0, resources.size(), forkJoinPool != null);
+    if (forkJoinPool == null) {
+      scan.compute();
+    } else {
+      forkJoinPool.invoke(scan);
+    }
+
+    int next = 0;
+    for (ResourcePool pool : pools) {
+      List<Piece> candidates = new ArrayList<>();
+      for (int r = 0; r < pool.getResources().size(); r++) {
+        candidates.addAll(free.get(next++));
+      }
+      starts = intersect(starts, cover(candidates));
+    }
+
+    // Hand the start times back to the sweep as openings, which it turns straight back into them.
+    context.openCount = 0;
+    for (Piece piece : starts) {
+      context.addOpening(piece.start, piece.end - 1 + duration);
+    }
+    int best = AttendanceSweep.sweepRuns(calendar, context, duration);
+    int minimum = context.attendeeCount == 0 ? context.optionalWeightTotal : 0;
+
+    List<Piece> chosen = new ArrayList<>();
+    if (best >= minimum) {
+      int first = 0;
+      for (int r = 0; r < context.runCount; r++) {
+        if (context.runScore[r] != best) {
+          continue;
+        }
+        while (first < starts.size() && starts.get(first).end <= context.runStart[r]) {
+          first++;
+        }
+        for (int p = first; p < starts.size() && starts.get(p).start < context.runEnd[r]; p++) {
+          Piece piece = starts.get(p);
+          append(chosen, Math.max(piece.start, context.runStart[r]), Math.min(piece.end, context.runEnd[r]),
+              piece.resources);
+        }
+      }
+    }
+
+    List<MeetingOption> options = new ArrayList<>(chosen.size());
+    for (Piece piece : chosen) {
+      options.add(new MeetingOption(TimeRange.fromStartEnd(piece.start, piece.end - 1 + duration, false),
+          Arrays.asList(piece.resources)));
+    }
+    return options;
+  }
+
+  /**
+   * Covers the union of {@code candidates} from left to right, always taking the candidate that
+   * reaches furthest, so the result has as few pieces as possible. Among candidates reaching equally
+   * far, the one listed first in its pool wins.
+   */
+  private static List<Piece> cover(List<Piece> candidates) {
+    // A stable sort keeps each pool's order among candidates that start together.
+    Collections.sort(candidates, ORDER_BY_START);
+
+    List<Piece> pieces = new ArrayList<>();
+    int covered = Integer.MIN_VALUE;
+    int i = 0;
+    while (i < candidates.size()) {
+      int point = Math.max(covered, candidates.get(i).start);
+      Piece furthest = null;
+      while (i < candidates.size() && candidates.get(i).start <= point) {
+        Piece candidate = candidates.get(i++);
+        if (candidate.end > point && (furthest == null || candidate.end > furthest.end)) {
+          furthest = candidate;
+        }
+      }
+      if (furthest != null) {
+        pieces.add(new Piece(point, furthest.end, furthest.resources));
+        covered = furthest.end;
+      }
+    }
+    return pieces;
+  }
+
+  /**
+   * Returns the start times in both lists, each labelled with the resources from both.
+   */
+  private static List<Piece> intersect(List<Piece> first, List<Piece> second) {
+    List<Piece> both = new ArrayList<>();
+    int i = 0;
+    int j = 0;
+    while (i < first.size() && j < second.size()) {
+      Piece a = first.get(i);
+      Piece b = second.get(j);
+      int start = Math.max(a.start, b.start);
+      int end = Math.min(a.end, b.end);
+      if (start < end) {
+        Resource[] resources = Arrays.copyOf(a.resources, a.resources.length + b.resources.length);
+        System.arraycopy(b.resources, 0, resources, a.resources.length, b.resources.length);
+        both.add(new Piece(start, end, resources));
+      }
+      if (a.end < b.end) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return both;
+  }
+
+  /**
+   * Adds [start, end) to {@code pieces}, extending the last piece if it ends there with the same
+   * resources.
+   */
+  private static void append(List<Piece> pieces, int start, int end, Resource[] resources) {
+    if (start >= end) {
+      return;
+    }
+    int last = pieces.size() - 1;
+    if (last >= 0 && pieces.get(last).end == start && Arrays.equals(pieces.get(last).resources, resources)) {
+      pieces.set(last, new Piece(pieces.get(last).start, end, resources));
+    } else {
+      pieces.add(new Piece(start, end, resources));
+    }
+  }
+
+  /**
+   * Finds the free start times of a slice of the resources, splitting it in half until the slices
+   * are small enough that forking would cost more than it saves.
+   */
+  private static final class ResourceScan extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final BusySchedule calendar;
+    private final List<Resource> resources;
+    private final TimeRange span;
+    private final int duration;
+    private final List<List<Piece>> free;
+    private final int from;
+    private final int to;
+    private final boolean parallel;
+
+    ResourceScan(BusySchedule calendar, List<Resource> resources, TimeRange span, int duration,
+        List<List<Piece>> free, int from, int to, boolean parallel) {
+      this.calendar = calendar;
+      this.resources = resources;
+      this.span = span;
+      this.duration = duration;
+      this.free = free;
+      this.from = from;
+      this.to = to;
+      this.parallel = parallel;
+    }
+
+    @Override
+    protected void compute() {
+      if (!parallel || to - from <= RESOURCES_PER_TASK) {
+        RangeBuffer busy = new RangeBuffer();
+        for (int r = from; r < to; r++) {
+          free.set(r, freeStarts(resources.get(r), busy));
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new ResourceScan(calendar, resources, span, duration, free, from, middle, true),
+          new ResourceScan(calendar, resources, span, duration, free, middle, to, true));
+    }
+
+    private List<Piece> freeStarts(Resource resource, RangeBuffer busy) {
+      Resource[] label = {resource};
+      busy.clear();
+      calendar.collectBusyTimes(
+          AttendeeRegistry.shared().lookup(resource.getName()), span.start(), span.end(), busy);
+
+      List<Piece> starts = new ArrayList<>(busy.size() + 1);
+      int gap = span.start();
+      for (int i = 0; i <= busy.size(); i++) {
+        int end = i < busy.size() ? Math.min(busy.start(i), span.end()) : span.end();
+        if (end - gap >= duration) {
+          starts.add(new Piece(gap, end - duration + 1, label));
+        }
+        if (i < busy.size()) {
+          gap = Math.max(gap, busy.end(i));
+        }
+      }
+      return starts;
+    }
+  }
+}
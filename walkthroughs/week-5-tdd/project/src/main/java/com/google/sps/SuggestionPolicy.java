@@ -0,0 +1,114 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+/**
+ * How meeting suggestions are ranked. Every candidate start time gets a score:
+ *
+ * <pre>
+ *   attendeeWeight * total weight of the optional attendees who can join
+ *   - distanceWeight * minutes the meeting reaches outside the preferred hours
+ *   - fragmentationWeight * minutes left over that are too short for another such meeting
+ * </pre>
+ *
+ * <p>Only start times that are a multiple of {@code startStep} minutes into the day are considered,
+ * the way a calendar offers meetings on the quarter hour. Policies are read-only.
+ */
+public final class SuggestionPolicy {
+  /**
+   * Prefers 9:00 to 17:00 and quarter-hour start times. One more optional attendee is worth moving
+   * the meeting an hour outside the preferred hours.
+   */
+  public static final SuggestionPolicy DEFAULT = new SuggestionPolicy(
+      TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(9, 0), TimeRange.getTimeInMinutes(17, 0), false),
+      15, 60, 1, 0.5);
+
+  private final TimeRange preferredHours;
+  private final int startStep;
+  private final double attendeeWeight;
+  private final double distanceWeight;
+  private final double fragmentationWeight;
+
+  /**
+   * @param preferredHours The part of every day meetings should be in. Must lie within a day.
+   * @param startStep The spacing of candidate start times in minutes. Must be positive.
+   * @param attendeeWeight The score of each unit of optional attendee weight, which is each optional
+   *     attendee who can join when they all have the default weight of 1.
+   * @param distanceWeight The penalty for each minute outside the preferred hours.
+   * @param fragmentationWeight The penalty for each minute of free time the meeting leaves in a
+   *     piece too short to hold another meeting of the same length.
+   */
+  public SuggestionPolicy(TimeRange preferredHours, int startStep, double attendeeWeight,
+      double distanceWeight, double fragmentationWeight) {
+    if (preferredHours == null || !TimeRange.WHOLE_DAY.contains(preferredHours)) {
+      throw new IllegalArgumentException("preferred hours must lie within a day");
+    }
+    if (startStep <= 0) {
+      throw new IllegalArgumentException("start step must be positive");
+    }
+    if (!(attendeeWeight >= 0 && distanceWeight >= 0 && fragmentationWeight >= 0)) {
+      throw new IllegalArgumentException("weights must be non-negative numbers");
+    }
+
+    this.preferredHours = preferredHours;
+    this.startStep = startStep;
+    this.attendeeWeight = attendeeWeight;
+    this.distanceWeight = distanceWeight;
+    this.fragmentationWeight = fragmentationWeight;
+  }
+
+  public TimeRange getPreferredHours() {
+    return preferredHours;
+  }
+
+  public int getStartStep() {
+    return startStep;
+  }
+
+  /**
+   * Returns the first candidate start time at or after {@code minute}.
+   */
+  int alignStart(int minute) {
+    int past = Math.floorMod(minute, startStep);
+    return past == 0 ? minute : minute + startStep - past;
+  }
+
+  /**
+   * Scores a meeting of {@code duration} minutes starting at {@code start} within the opening
+   * [{@code openingStart}, {@code openingEnd}) that optional attendees of total weight {@code
+   * attendees} can join.
+   */
+  double score(int start, int duration, int attendees, int openingStart, int openingEnd) {
+    int minuteOfDay = Math.floorMod(start, TimeRange.MINUTES_PER_DAY);
+    int distance = Math.max(preferredHours.start() - minuteOfDay, 0)
+        + Math.max(minuteOfDay + duration - preferredHours.end(), 0);
+    int fragmentation = sliver(start - openingStart, duration) + sliver(openingEnd - start - duration, duration);
+    return attendeeWeight * attendees - distanceWeight * distance - fragmentationWeight * fragmentation;
+  }
+
+  /**
+   * Returns {@code leftover} if it is free time too short for another meeting, or 0 otherwise.
+   */
+  private static int sliver(int leftover, int duration) {
+    return leftover < duration ? leftover : 0;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("SuggestionPolicy: preferred %s, every %d minutes, weights %s/%s/%s",
+        preferredHours, startStep, attendeeWeight, distanceWeight, fragmentationWeight);
+  }
+}
@@ -0,0 +1,101 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Picks the best concrete start times from the runs found by {@code AttendanceSweep}.
+ *
+ * <p>Each candidate start time is scored as it is generated and offered to a heap holding the k
+ * best so far, worst on top. A candidate that can't beat the worst is dropped without being
+ * allocated, so a dense calendar with thousands of candidates costs O(c log k) time and O(k)
+ * memory.
+ */
+final class SuggestionRanker {
+  // Puts the worst suggestion first: the lowest score, and among equal scores the latest start.
+  private static final Comparator<MeetingSuggestion> WORST_FIRST = new Comparator<MeetingSuggestion>() {
+    @Override
+    public int compare(MeetingSuggestion a, MeetingSuggestion b) {
+      int byScore = Double.compare(a.getScore(), b.getScore());
+      return byScore != 0 ? byScore : Integer.compare(b.getWhen().start(), a.getWhen().start());
+    }
+  };
+
+  private SuggestionRanker() {}
+
+  /**
+   * Returns up to {@code limit} suggestions, best first, for start times in the context's runs. The
+   * runs and openings must have been filled by {@code AttendanceSweep.sweepRuns}.
+   *
+   * @param limit The most suggestions to return. Must be positive.
+   * @param minimum The least total weight of optional attendees a suggestion must allow.
+   */
+  static List<MeetingSuggestion> topK(QueryContext context, int duration, SuggestionPolicy policy,
+      int limit, int minimum) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be at least 1, but was " + limit);
+    }
+    // Size the heap for the candidates there are, so a generous limit doesn't allocate a huge one.
+    long candidates = 0;
+    for (int r = 0; r < context.runCount && candidates < limit; r++) {
+      if (context.runScore[r] >= minimum) {
+        long span = (long) context.runEnd[r] - policy.alignStart(context.runStart[r]);
+        candidates += Math.max(0, (span + policy.getStartStep() - 1) / policy.getStartStep());
+      }
+    }
+    PriorityQueue<MeetingSuggestion> best =
+        new PriorityQueue<>((int) Math.max(1, Math.min(limit, candidates)), WORST_FIRST);
+
+    int opening = 0;
+    for (int r = 0; r < context.runCount; r++) {
+      int weight = context.runScore[r];
+      if (weight < minimum) {
+        continue;
+      }
+      // Runs never span two openings, and both are sorted, so the opening only moves forward.
+      while (context.openEnd[opening] - duration < context.runStart[r]) {
+        opening++;
+      }
+
+      for (int start = policy.alignStart(context.runStart[r]); start < context.runEnd[r];
+          start += policy.getStartStep()) {
+        double score = policy.score(start, duration, weight, context.openStart[opening],
+            context.openEnd[opening]);
+        if (best.size() == limit && !beats(score, start, best.peek())) {
+          continue;
+        }
+        if (best.size() == limit) {
+          best.poll();
+        }
+        best.add(new MeetingSuggestion(TimeRange.fromStartDuration(start, duration), weight, score));
+      }
+    }
+
+    List<MeetingSuggestion> ranked = new ArrayList<>(best);
+    Collections.sort(ranked, Collections.reverseOrder(WORST_FIRST));
+    return ranked;
+  }
+
+  private static boolean beats(double score, int start, MeetingSuggestion worst) {
+    int byScore = Double.compare(score, worst.getScore());
+    return byScore > 0 || (byScore == 0 && start < worst.getWhen().start());
+  }
+}
@@ -24,7 +24,9 @@ public final class TimeRange {
   public static final int START_OF_DAY = getTimeInMinutes(0, 0);
   public static final int END_OF_DAY = getTimeInMinutes(23, 59);
 
-  public static final TimeRange WHOLE_DAY = new TimeRange(0, 24 * 60);
+  public static final int MINUTES_PER_DAY = 24 * 60;
+
+  public static final TimeRange WHOLE_DAY = new TimeRange(0, MINUTES_PER_DAY);
 
   /**
    * A comparator for sorting ranges by their start time in ascending order.
@@ -168,6 +170,15 @@ public final class TimeRange {
     return (hours * 60) + minutes;
   }
 
+  /**
+   * Returns the minute at which the day {@code epochDay} begins, where both are counted from the
+   * start of 1970-01-01. Ranges spanning several days use these minutes instead of minutes since
+   * the start of a single day.
+   */
+  public static int startOfEpochDay(int epochDay) {
+    return Math.multiplyExact(epochDay, MINUTES_PER_DAY);
+  }
+
   /**
    * Creates a {@code TimeRange} from {@code start} to {@code end}. Whether or not {@code end} is
    * included in the range will depend on {@code inclusive}. If {@code inclusive} is {@code true},
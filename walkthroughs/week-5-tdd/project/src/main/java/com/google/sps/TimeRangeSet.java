@@ -0,0 +1,434 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of minutes within a fixed universe, such as a day or a week, that answers questions about
+ * the ranges it covers and the gaps between them in logarithmic time.
+ *
+ * <p>The set is a segment tree over the minutes of its universe. Every node knows how many of its
+ * minutes are covered and how long its longest free stretch is, including the free stretches
+ * touching either end. Adding or removing a range, asking whether a minute is covered (a stabbing
+ * query) and finding the first gap long enough for a meeting (first fit) all cost O(log n) for a
+ * universe of n minutes. Listing k ranges or combining with a set of k ranges costs O(k log n).
+ *
+ * <p>The tree takes a fixed amount of memory in proportion to the universe, about 70 bytes a
+ * minute, so a set should span a day or a week rather than years. Minutes outside the universe are
+ * never covered; ranges reaching outside it are clipped. Sets are not thread-safe.
+ */
+public final class TimeRangeSet {
+  // Pending assignments that have not been pushed down to a node's children yet.
+  private static final byte NONE = 0;
+  private static final byte COVER = 1;
+  private static final byte CLEAR = 2;
+
+  private final TimeRange universe;
+  private final int offset;
+  private final int size;
+
+  // Indexed by node, with the root at 1 and the children of node i at 2i and 2i + 1.
+  private final int[] covered;
+  private final int[] prefixFree;
+  private final int[] suffixFree;
+  private final int[] longestFree;
+  private final byte[] pending;
+
+  /**
+   * Creates an empty set spanning a single day.
+   */
+  public TimeRangeSet() {
+    this(TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Creates an empty set spanning {@code universe}.
+   *
+   * @param universe The minutes the set can hold. Must be non-null and not empty.
+   */
+  public TimeRangeSet(TimeRange universe) {
+    if (universe == null || universe.duration() <= 0) {
+      throw new IllegalArgumentException("universe must be a range that is not empty");
+    }
+
+    this.universe = universe;
+    this.offset = universe.start();
+    this.size = universe.duration();
+
+    int nodes = 4 * size;
+    covered = new int[nodes];
+    prefixFree = new int[nodes];
+    suffixFree = new int[nodes];
+    longestFree = new int[nodes];
+    pending = new byte[nodes];
+    apply(1, 0, size, CLEAR);
+  }
+
+  /**
+   * Returns the range of minutes this set can hold.
+   */
+  public TimeRange getUniverse() {
+    return universe;
+  }
+
+  /**
+   * Adds every minute of {@code range}.
+   */
+  public void add(TimeRange range) {
+    assign(range.start(), range.end(), COVER);
+  }
+
+  /**
+   * Removes every minute of {@code range}.
+   */
+  public void remove(TimeRange range) {
+    assign(range.start(), range.end(), CLEAR);
+  }
+
+  /**
+   * Adds every minute covered by {@code other}, making this set the union of the two.
+   */
+  public void addAll(TimeRangeSet other) {
+    for (TimeRange range : other.getRanges()) {
+      add(range);
+    }
+  }
+
+  /**
+   * Removes every minute not covered by {@code other}, making this set the intersection of the two.
+   */
+  public void retainAll(TimeRangeSet other) {
+    assign(universe.start(), other.universe.start(), CLEAR);
+    for (TimeRange gap : other.getGaps()) {
+      remove(gap);
+    }
+    assign(other.universe.end(), universe.end(), CLEAR);
+  }
+
+  /**
+   * Removes every minute covered by {@code other}, subtracting it from this set.
+   */
+  public void removeAll(TimeRangeSet other) {
+    for (TimeRange range : other.getRanges()) {
+      remove(range);
+    }
+  }
+
+  /**
+   * Returns whether {@code minute} is covered.
+   */
+  public boolean contains(int minute) {
+    int point = minute - offset;
+    return point >= 0 && point < size && sum(1, 0, size, point, point + 1) == 1;
+  }
+
+  /**
+   * Returns whether every minute of {@code range} is covered. An empty range is always contained.
+   */
+  public boolean contains(TimeRange range) {
+    return getCoveredMinutes(range) == range.duration();
+  }
+
+  /**
+   * Returns whether any minute of {@code range} is covered.
+   */
+  public boolean overlaps(TimeRange range) {
+    return getCoveredMinutes(range) > 0;
+  }
+
+  /**
+   * Returns the longest range of covered minutes that includes {@code minute}, or {@code null} if
+   * the minute is not covered.
+   */
+  public TimeRange getRangeContaining(int minute) {
+    if (!contains(minute)) {
+      return null;
+    }
+    int point = minute - offset;
+    int start = lastFree(1, 0, size, point) + 1;
+    int end = firstFree(1, 0, size, point);
+    return TimeRange.fromStartEnd(offset + start, offset + (end < 0 ? size : end), false);
+  }
+
+  /**
+   * Returns the number of covered minutes in the whole universe.
+   */
+  public int getCoveredMinutes() {
+    return covered[1];
+  }
+
+  /**
+   * Returns the number of covered minutes within {@code range}.
+   */
+  public int getCoveredMinutes(TimeRange range) {
+    int from = Math.max(range.start() - offset, 0);
+    int to = Math.min(range.end() - offset, size);
+    return from < to ? sum(1, 0, size, from, to) : 0;
+  }
+
+  /**
+   * Returns whether no minute is covered.
+   */
+  public boolean isEmpty() {
+    return covered[1] == 0;
+  }
+
+  /**
+   * Returns the earliest gap at least {@code minDuration} minutes long, from the last covered minute
+   * before it to the next covered minute after it, or {@code null} if there is none.
+   */
+  public TimeRange firstGap(int minDuration) {
+    int length = Math.max(minDuration, 1);
+    if (length > longestFree[1]) {
+      return null;
+    }
+    int start = firstFit(1, 0, size, length);
+    int end = firstCovered(1, 0, size, start);
+    return TimeRange.fromStartEnd(offset + start, offset + (end < 0 ? size : end), false);
+  }
+
+  /**
+   * Returns the longest stretch of minutes, anywhere in the universe, that is not covered.
+   */
+  public int getLongestGap() {
+    return longestFree[1];
+  }
+
+  /**
+   * Returns the covered ranges, sorted by start time. Ranges that touch are merged.
+   */
+  public List<TimeRange> getRanges() {
+    List<TimeRange> ranges = new ArrayList<>();
+    int start = firstCovered(1, 0, size, 0);
+    while (start >= 0) {
+      int end = firstFree(1, 0, size, start);
+      if (end < 0) {
+        end = size;
+      }
+      ranges.add(TimeRange.fromStartEnd(offset + start, offset + end, false));
+      start = end < size ? firstCovered(1, 0, size, end) : -1;
+    }
+    return ranges;
+  }
+
+  /**
+   * Returns the gaps between the covered ranges, sorted by start time.
+   */
+  public List<TimeRange> getGaps() {
+    return getGaps(1);
+  }
+
+  /**
+   * Returns the gaps at least {@code minDuration} minutes long, sorted by start time. Since every
+   * node knows its longest gap, the search skips parts of the universe too crowded to hold one.
+   */
+  public List<TimeRange> getGaps(int minDuration) {
+    List<TimeRange> gaps = new ArrayList<>();
+    int from = 0;
+    while (from < size) {
+      int start = firstFit(1, 0, size, Math.max(minDuration, 1), from);
+      if (start < 0) {
+        break;
+      }
+      int end = firstCovered(1, 0, size, start);
+      if (end < 0) {
+        end = size;
+      }
+      gaps.add(TimeRange.fromStartEnd(offset + start, offset + end, false));
+      from = end;
+    }
+    return gaps;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof TimeRangeSet
+        && universe.equals(((TimeRangeSet) other).universe)
+        && getRanges().equals(((TimeRangeSet) other).getRanges());
+  }
+
+  @Override
+  public int hashCode() {
+    return universe.hashCode() * 31 + getRanges().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "TimeRangeSet: " + getRanges();
+  }
+
+  private void assign(int start, int end, byte value) {
+    int from = Math.max(start - offset, 0);
+    int to = Math.min(end - offset, size);
+    if (from < to) {
+      update(1, 0, size, from, to, value);
+    }
+  }
+
+  private void update(int node, int low, int high, int from, int to, byte value) {
+    if (to <= low || high <= from) {
+      return;
+    }
+    if (from <= low && high <= to) {
+      apply(node, low, high, value);
+      return;
+    }
+    int middle = (low + high) >>> 1;
+    push(node, low, middle, high);
+    update(2 * node, low, middle, from, to, value);
+    update(2 * node + 1, middle, high, from, to, value);
+    pull(node, low, middle, high);
+  }
+
+  private int sum(int node, int low, int high, int from, int to) {
+    if (to <= low || high <= from) {
+      return 0;
+    }
+    if (from <= low && high <= to) {
+      return covered[node];
+    }
+    int middle = (low + high) >>> 1;
+    push(node, low, middle, high);
+    return sum(2 * node, low, middle, from, to) + sum(2 * node + 1, middle, high, from, to);
+  }
+
+  /**
+   * Returns the first free minute at or after {@code from}, or -1 if there is none.
+   */
+  private int firstFree(int node, int low, int high, int from) {
+    if (high <= from || longestFree[node] == 0) {
+      return -1;
+    }
+    if (high - low == 1) {
+      return low;
+    }
+    int middle = (low + high) >>> 1;
+    push(node, low, middle, high);
+    int found = firstFree(2 * node, low, middle, from);
+    return found >= 0 ? found : firstFree(2 * node + 1, middle, high, from);
+  }
+
+  /**
+   * Returns the last free minute before {@code to}, or -1 if there is none.
+   */
+  private int lastFree(int node, int low, int high, int to) {
+    if (to <= low || longestFree[node] == 0) {
+      return -1;
+    }
+    if (high - low == 1) {
+      return low;
+    }
+    int middle = (low + high) >>> 1;
+    push(node, low, middle, high);
+    int found = lastFree(2 * node + 1, middle, high, to);
+    return found >= 0 ? found : lastFree(2 * node, low, middle, to);
+  }
+
+  /**
+   * Returns the first covered minute at or after {@code from}, or -1 if there is none.
+   */
+  private int firstCovered(int node, int low, int high, int from) {
+    if (high <= from || covered[node] == 0) {
+      return -1;
+    }
+    if (high - low == 1) {
+      return low;
+    }
+    int middle = (low + high) >>> 1;
+    push(node, low, middle, high);
+    int found = firstCovered(2 * node, low, middle, from);
+    return found >= 0 ? found : firstCovered(2 * node + 1, middle, high, from);
+  }
+
+  /**
+   * Returns the start of the first free stretch of at least {@code length} minutes. The caller must
+   * have checked that the node holds one.
+   */
+  private int firstFit(int node, int low, int high, int length) {
+    while (high - low > 1) {
+      int middle = (low + high) >>> 1;
+      push(node, low, middle, high);
+      if (longestFree[2 * node] >= length) {
+        node = 2 * node;
+        high = middle;
+      } else if (suffixFree[2 * node] + prefixFree[2 * node + 1] >= length) {
+        return middle - suffixFree[2 * node];
+      } else {
+        node = 2 * node + 1;
+        low = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the start of the first free stretch of at least {@code length} minutes that starts at
+   * or after {@code from}, or -1 if there is none.
+   */
+  private int firstFit(int node, int low, int high, int length, int from) {
+    if (high <= from || longestFree[node] < length) {
+      return -1;
+    }
+    if (from <= low) {
+      return firstFit(node, low, high, length);
+    }
+    int middle = (low + high) >>> 1;
+    push(node, low, middle, high);
+    int found = firstFit(2 * node, low, middle, length, from);
+    if (found >= 0) {
+      return found;
+    }
+    // A stretch crossing the middle, starting no earlier than from.
+    int crossing = Math.min(suffixFree[2 * node], middle - from);
+    if (crossing > 0 && crossing + prefixFree[2 * node + 1] >= length) {
+      return middle - crossing;
+    }
+    return firstFit(2 * node + 1, middle, high, length, from);
+  }
+
+  private void apply(int node, int low, int high, byte value) {
+    int length = high - low;
+    boolean cover = value == COVER;
+    covered[node] = cover ? length : 0;
+    prefixFree[node] = cover ? 0 : length;
+    suffixFree[node] = cover ? 0 : length;
+    longestFree[node] = cover ? 0 : length;
+    if (length > 1) {
+      pending[node] = value;
+    }
+  }
+
+  private void push(int node, int low, int middle, int high) {
+    if (pending[node] != NONE) {
+      apply(2 * node, low, middle, pending[node]);
+      apply(2 * node + 1, middle, high, pending[node]);
+      pending[node] = NONE;
+    }
+  }
+
+  private void pull(int node, int low, int middle, int high) {
+    int left = 2 * node;
+    int right = 2 * node + 1;
+    covered[node] = covered[left] + covered[right];
+    prefixFree[node] =
+        prefixFree[left] == middle - low ? prefixFree[left] + prefixFree[right] : prefixFree[left];
+    suffixFree[node] =
+        suffixFree[right] == high - middle ? suffixFree[right] + suffixFree[left] : suffixFree[right];
+    longestFree[node] = Math.max(Math.max(longestFree[left], longestFree[right]),
+        suffixFree[left] + prefixFree[right]);
+  }
+}
@@ -0,0 +1,213 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The hours of every day a person works, in their own time zone, such as 9:00 to 17:00 in New
+ * York. Times in the meeting engine are minutes since the start of 1970-01-01 UTC, so the hours
+ * are worked out day by day, following the zone's daylight saving changes.
+ *
+ * <p>Working out the hours is slow next to a query, so the time outside them is compiled once per
+ * span: into sorted ranges for the sweep engine, and for the bitmap engine into a mask of busy slots
+ * per slot length, which a query ORs into its bitmap a word at a time. Every query over the same
+ * horizon shares them, as do all the people with the same hours. Working hours are read-only and
+ * safe to share between threads.
+ */
+public final class WorkingHours {
+  // Compiled spans are small, but horizons are endless; past this many the least recently used go.
+  private static final int MAX_SPANS = 64;
+
+  private final ZoneId zone;
+  private final int dayStart;
+  private final int dayEnd;
+  // Keyed by the span's start and end packed into a long, in order of last use. Guarded by itself.
+  private final LinkedHashMap<Long, CompiledSpan> spans =
+      new LinkedHashMap<Long, CompiledSpan>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CompiledSpan> eldest) {
+          return size() > MAX_SPANS;
+        }
+      };
+
+  /**
+   * @param zone The time zone the hours are in. Must be non-null.
+   * @param dayStart The minute of the local day work starts at.
+   * @param dayEnd The minute of the local day work ends at, exclusive. Must come after {@code
+   *     dayStart} and be no later than the end of the day.
+   */
+  public WorkingHours(ZoneId zone, int dayStart, int dayEnd) {
+    if (zone == null) {
+      throw new IllegalArgumentException("zone cannot be null");
+    }
+    if (dayStart < TimeRange.START_OF_DAY || dayEnd > TimeRange.MINUTES_PER_DAY || dayStart >= dayEnd) {
+      throw new IllegalArgumentException("working hours must fall within the day");
+    }
+    this.zone = zone;
+    this.dayStart = dayStart;
+    this.dayEnd = dayEnd;
+  }
+
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  public int getDayStart() {
+    return dayStart;
+  }
+
+  public int getDayEnd() {
+    return dayEnd;
+  }
+
+  /**
+   * Appends the times outside these hours within [{@code from}, {@code to}) to {@code out}, sorted
+   * by start time and clipped to the span.
+   */
+  public void collectOffHours(int from, int to, RangeBuffer out) {
+    if (from >= to) {
+      return;
+    }
+    // Start a day early, since the local day may begin before the span does.
+    LocalDate day = localDate(from).minusDays(1);
+    int off = from;
+    while (off < to) {
+      int start = toMinutes(day, dayStart);
+      int end = toMinutes(day, dayEnd);
+      day = day.plusDays(1);
+      if (end <= off) {
+        continue;
+      }
+      if (start > off) {
+        out.add(off, Math.min(start, to));
+      }
+      off = end;
+    }
+  }
+
+  /**
+   * Returns the times outside these hours within [{@code spanStart}, {@code spanEnd}), as {@link
+   * #collectOffHours} would append them. The caller must not modify them.
+   */
+  RangeBuffer offHours(int spanStart, int spanEnd) {
+    return compile(spanStart, spanEnd).offHours;
+  }
+
+  /**
+   * Returns the time outside these hours as a bitmap of busy slots, laid out like an {@code
+   * AvailabilityBitmap} reset to the same span and slot length. The caller must not modify it.
+   */
+  long[] offHoursMask(int spanStart, int spanEnd, AvailabilityBitmap.Granularity granularity) {
+    return compile(spanStart, spanEnd).mask(granularity);
+  }
+
+  private CompiledSpan compile(int spanStart, int spanEnd) {
+    Long key = ((long) spanStart << 32) | (spanEnd & 0xffffffffL);
+    synchronized (spans) {
+      CompiledSpan compiled = spans.get(key);
+      if (compiled != null) {
+        return compiled;
+      }
+    }
+
+    // Compiled without the lock, so queries over other spans don't wait. If two threads compile
+    // the same span at once, the first one kept wins.
+    RangeBuffer offHours = new RangeBuffer();
+    collectOffHours(spanStart, spanEnd, offHours);
+    CompiledSpan fresh = new CompiledSpan(spanStart, spanEnd, offHours);
+    synchronized (spans) {
+      CompiledSpan compiled = spans.get(key);
+      if (compiled == null) {
+        spans.put(key, fresh);
+        compiled = fresh;
+      }
+      return compiled;
+    }
+  }
+
+  private LocalDate localDate(int minute) {
+    return Instant.ofEpochSecond(minute * 60L).atZone(zone).toLocalDate();
+  }
+
+  /**
+   * Returns the engine's minute for {@code minuteOfDay} on the local {@code day}. A local time
+   * skipped by a daylight saving change is moved forward by the length of the gap.
+   */
+  private int toMinutes(LocalDate day, int minuteOfDay) {
+    ZonedDateTime time = minuteOfDay == TimeRange.MINUTES_PER_DAY
+        ? day.plusDays(1).atStartOfDay(zone)
+        : ZonedDateTime.of(day, LocalTime.ofSecondOfDay(minuteOfDay * 60L), zone);
+    return (int) Math.floorDiv(time.toEpochSecond(), 60L);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof WorkingHours)) {
+      return false;
+    }
+    WorkingHours hours = (WorkingHours) other;
+    return zone.equals(hours.zone) && dayStart == hours.dayStart && dayEnd == hours.dayEnd;
+  }
+
+  @Override
+  public int hashCode() {
+    return (zone.hashCode() * 31 + dayStart) * 31 + dayEnd;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("WorkingHours: %s to %s in %s", LocalTime.ofSecondOfDay(dayStart * 60L),
+        dayEnd == TimeRange.MINUTES_PER_DAY ? "24:00" : LocalTime.ofSecondOfDay(dayEnd * 60L), zone);
+  }
+
+  /**
+   * The time outside the hours within one span, and the masks built from it so far.
+   */
+  private static final class CompiledSpan {
+    final int spanStart;
+    final int spanEnd;
+    final RangeBuffer offHours;
+    // Indexed by slot length. Built the first time a query asks for one.
+    private final long[][] masks = new long[AvailabilityBitmap.Granularity.values().length][];
+
+    CompiledSpan(int spanStart, int spanEnd, RangeBuffer offHours) {
+      this.spanStart = spanStart;
+      this.spanEnd = spanEnd;
+      this.offHours = offHours;
+    }
+
+    synchronized long[] mask(AvailabilityBitmap.Granularity granularity) {
+      long[] mask = masks[granularity.ordinal()];
+      if (mask == null) {
+        AvailabilityBitmap bitmap = new AvailabilityBitmap();
+        bitmap.reset(spanStart, spanEnd, granularity);
+        for (int i = 0; i < offHours.size(); i++) {
+          bitmap.markBusy(offHours.start(i), offHours.end(i));
+        }
+        mask = bitmap.getBusyWords();
+        masks[granularity.ordinal()] = mask;
+      }
+      return mask;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The working hours of each person, looked up by their id in the shared {@code AttendeeRegistry}.
+ * People without working hours are available around the clock. Equal working hours are stored
+ * once, so everyone who shares them also shares their compiled masks. Lookups read a plain array
+ * and are safe from any thread; changes are copied on write and are expected to be rare.
+ */
+public final class WorkingHoursDirectory {
+  private final Map<WorkingHours, WorkingHours> profiles = new HashMap<>();
+  private volatile WorkingHours[] byId = new WorkingHours[0];
+
+  /**
+   * Sets the working hours of {@code attendee}, replacing any they had.
+   */
+  public synchronized void set(String attendee, WorkingHours hours) {
+    if (hours == null) {
+      throw new IllegalArgumentException("hours cannot be null");
+    }
+    WorkingHours shared = profiles.get(hours);
+    if (shared == null) {
+      profiles.put(hours, hours);
+      shared = hours;
+    }
+
+    int id = AttendeeRegistry.shared().intern(attendee);
+    WorkingHours[] copy = Arrays.copyOf(byId, Math.max(byId.length, id + 1));
+    copy[id] = shared;
+    byId = copy;
+  }
+
+  /**
+   * Makes {@code attendee} available around the clock again.
+   */
+  public synchronized void remove(String attendee) {
+    int id = AttendeeRegistry.shared().lookup(attendee);
+    if (id >= 0 && id < byId.length) {
+      WorkingHours[] copy = byId.clone();
+      copy[id] = null;
+      byId = copy;
+    }
+  }
+
+  /**
+   * Returns the working hours of {@code attendee}, or null if they have none.
+   */
+  public WorkingHours get(String attendee) {
+    return get(AttendeeRegistry.shared().lookup(attendee));
+  }
+
+  /**
+   * Returns the working hours of the person with id {@code attendeeId}, or null if they have none.
+   */
+  public WorkingHours get(int attendeeId) {
+    WorkingHours[] hours = byId;
+    return attendeeId >= 0 && attendeeId < hours.length ? hours[attendeeId] : null;
+  }
+}
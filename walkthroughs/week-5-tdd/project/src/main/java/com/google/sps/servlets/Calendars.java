@@ -0,0 +1,91 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.sps.CalendarLog;
+import com.google.sps.Event;
+import com.google.sps.Events;
+import com.google.sps.IncrementalCalendar;
+import com.google.sps.QueryCache;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * The calendar shared by the servlets, the answers to recent queries against it and the workers
+ * that run those queries. The calendar starts out with the sample events and grows as events are
+ * imported.
+ *
+ * <p>If the {@code calendar.log.directory} system property names a directory, every change is
+ * written to a {@code CalendarLog} there, and the calendar is rebuilt from it at startup. The
+ * sample events are only added the first time.
+ */
+final class Calendars {
+  static final String LOG_DIRECTORY_PROPERTY = "calendar.log.directory";
+
+  static final IncrementalCalendar CALENDAR = new IncrementalCalendar();
+
+  // The log every change to the calendar goes through, or null if the calendar is only in memory.
+  static final CalendarLog LOG = openLog();
+
+  // Booking pages ask the same questions over and over; a thousand answers cover a busy day.
+  static final QueryCache QUERY_CACHE = new QueryCache(1024);
+
+  // Queries are CPU-bound, so more workers than cores only adds contention. The queue holds a few
+  // seconds' worth of typical queries; past that, clients are better off retrying.
+  static final QueryWorkers QUERY_WORKERS =
+      new QueryWorkers(Runtime.getRuntime().availableProcessors(), 64);
+
+  private Calendars() {}
+
+  /**
+   * Adds a batch of events to the calendar, through the log if there is one.
+   *
+   * @throws UncheckedIOException if the log could not be written. None of the events were added.
+   */
+  static void addEvents(Collection<Event> batch) {
+    if (LOG == null) {
+      CALENDAR.addEvents(batch);
+      return;
+    }
+    try {
+      LOG.addEvents(batch);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static CalendarLog openLog() {
+    String directory = System.getProperty(LOG_DIRECTORY_PROPERTY);
+    if (directory == null) {
+      CALENDAR.addEvents(Arrays.asList(Events.events));
+      return null;
+    }
+    try {
+      CalendarLog log = CalendarLog.open(Paths.get(directory), CALENDAR);
+      // A log that was emptied by removing every event must stay empty.
+      if (log.isNew()) {
+        log.addEvents(Arrays.asList(Events.events));
+      }
+      return log;
+    } catch (IOException e) {
+      // Serving a calendar that has silently lost events would be worse than not serving at all.
+      throw new IllegalStateException("could not recover the calendar from " + directory, e);
+    }
+  }
+}
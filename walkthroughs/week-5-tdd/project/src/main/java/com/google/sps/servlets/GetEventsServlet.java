@@ -12,25 +12,187 @@
 // See the License for the specific language governing permissions and
 // limitations under the License.
 
+
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.gson.Gson;
+import com.google.sps.Event;
+import com.google.sps.IncrementalCalendar;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Serves every event in the shared calendar as JSON. The JSON and a gzipped copy are built once per
+ * version of the calendar, so most requests just copy bytes, and clients that already have the
+ * current version get a 304 without a body.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  // The calendar keeps its events in no particular order, so they are sorted to make the same events
+  // always serialize, and hash, the same way.
+  private static final Comparator<Event> ORDER = new Comparator<Event>() {
+    @Override
+    public int compare(Event a, Event b) {
+      int order = Integer.compare(a.getWhen().start(), b.getWhen().start());
+      if (order == 0) {
+        order = Integer.compare(a.getWhen().end(), b.getWhen().end());
+      }
+      if (order == 0) {
+        order = a.getTitle().compareTo(b.getTitle());
+      }
+      // Attendees come back sorted.
+      Iterator<String> first = a.getAttendees().iterator();
+      Iterator<String> second = b.getAttendees().iterator();
+      while (order == 0 && first.hasNext() && second.hasNext()) {
+        order = first.next().compareTo(second.next());
+      }
+      if (order == 0) {
+        order = Boolean.compare(first.hasNext(), second.hasNext());
+      }
+      return order;
+    }
+  };
+
+  private static volatile Snapshot snapshot;
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    Snapshot current = current(Calendars.CALENDAR);
+    boolean gzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+    String etag = gzip ? current.gzipEtag : current.etag;
+
+    response.setHeader("ETag", etag);
+    response.setHeader("Vary", "Accept-Encoding");
+    // Let clients keep a copy, but make them check it is still current before using it.
+    response.setHeader("Cache-Control", "no-cache");
+    if (matches(request.getHeader("If-None-Match"), etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    byte[] body = gzip ? current.gzip : current.json;
+    if (gzip) {
+      response.setHeader("Content-Encoding", "gzip");
+    }
+    response.setContentType("application/json; charset=UTF-8");
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  /**
+   * Returns the snapshot of the calendar's current version, building it if the calendar changed.
+   */
+  private static Snapshot current(IncrementalCalendar calendar) throws IOException {
+    Snapshot current = snapshot;
+    if (current != null && current.version == calendar.getVersion()) {
+      return current;
+    }
+    synchronized (GetEventsServlet.class) {
+      // Another request may have built it while this one waited.
+      current = snapshot;
+      long version = calendar.getVersion();
+      if (current == null || current.version != version) {
+        List<Event> events = calendar.getEvents();
+        Collections.sort(events, ORDER);
+        current = new Snapshot(version, Json.GSON.toJson(events));
+        snapshot = current;
+      }
+      return current;
+    }
+  }
+
+  /**
+   * Returns whether an Accept-Encoding header allows gzip, that is, lists it without {@code q=0}.
+   */
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+        continue;
+      }
+      for (int i = 1; i < parts.length; i++) {
+        String parameter = parts[i].trim().replace(" ", "");
+        if (parameter.matches("q=0(\\.0{0,3})?")) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether an If-None-Match header names {@code etag}. As the header requires, weak tags
+   * match their strong equivalent.
+   */
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * One version of the calendar's events, ready to send.
+   */
+  private static final class Snapshot {
+    final long version;
+    final byte[] json;
+    final byte[] gzip;
+    final String etag;
+    final String gzipEtag;
+
+    Snapshot(long version, String json) throws IOException {
+      this.version = version;
+      this.json = json.getBytes(StandardCharsets.UTF_8);
+
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(this.json.length / 4 + 64);
+      try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+        out.write(this.json);
+      }
+      this.gzip = compressed.toByteArray();
+
+      // A hash of the content rather than the version, so the tag stays right across restarts.
+      String hash = sha256(this.json);
+      this.etag = "\"" + hash + "\"";
+      this.gzipEtag = "\"" + hash + "-gzip\"";
+    }
 
-    // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    private static String sha256(byte[] bytes) {
+      try {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+          hex.append(String.format("%02x", digest[i]));
+        }
+        return hex.toString();
+      } catch (NoSuchAlgorithmException e) {
+        // Every Java platform is required to support SHA-256.
+        throw new IllegalStateException(e);
+      }
+    }
   }
 }
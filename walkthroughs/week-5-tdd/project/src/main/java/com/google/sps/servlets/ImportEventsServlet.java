@@ -0,0 +1,65 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.sps.Event;
+import com.google.sps.EventReader;
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Adds events to the shared calendar from a request body of newline-delimited JSON, one event per
+ * line. The body is read as a stream and events are added in batches, so loading a hundred thousand
+ * events never holds more than one batch in memory.
+ */
+@WebServlet("/import-events")
+public class ImportEventsServlet extends HttpServlet {
+  // Big enough to make taking the calendar's lock rare, small enough to keep queries flowing.
+  private static final int BATCH_SIZE = 1000;
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    int imported = 0;
+    JsonObject result = new JsonObject();
+
+    EventReader events = new EventReader(request.getReader());
+    try {
+      List<Event> batch = new ArrayList<>(BATCH_SIZE);
+      while (events.next(batch, BATCH_SIZE) > 0) {
+        Calendars.addEvents(batch);
+        imported += batch.size();
+        batch.clear();
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      // Every complete batch before the bad event stays in the calendar.
+      response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      result.addProperty("error", e.getMessage());
+    } finally {
+      events.close();
+    }
+
+    result.addProperty("imported", imported);
+    result.addProperty("events", Calendars.CALENDAR.getEventCount());
+    response.setContentType("application/json");
+    response.getWriter().println(result);
+  }
+}
@@ -0,0 +1,60 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.sps.TimeRange;
+import com.google.sps.TimeRangeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * JSON handling shared by the servlets.
+ */
+final class Json {
+  /**
+   * A Gson that writes time ranges without reflection. Gson instances are thread-safe, and building
+   * one is expensive, so every servlet uses this one.
+   */
+  static final Gson GSON =
+      new GsonBuilder().registerTypeAdapter(TimeRange.class, new TimeRangeAdapter()).create();
+
+  private static final TypeAdapter<TimeRange> TIME_RANGES = GSON.getAdapter(TimeRange.class);
+
+  private Json() {}
+
+  /**
+   * Writes {@code ranges} as a JSON array straight to the response, one range at a time, without
+   * building the whole response in memory first.
+   */
+  static void writeTimeRanges(HttpServletResponse response, Collection<TimeRange> ranges)
+      throws IOException {
+    response.setContentType("application/json; charset=UTF-8");
+    JsonWriter out = new JsonWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+    out.beginArray();
+    for (TimeRange range : ranges) {
+      TIME_RANGES.write(out, range);
+    }
+    out.endArray();
+    out.flush();
+  }
+}
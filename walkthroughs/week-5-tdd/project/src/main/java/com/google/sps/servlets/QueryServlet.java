@@ -12,40 +12,213 @@
 // See the License for the specific language governing permissions and
 // limitations under the License.
 
+
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
 import com.google.sps.FindMeetingQuery;
+import com.google.sps.Horizon;
 import com.google.sps.MeetingRequest;
+import com.google.sps.QueryResult;
 import com.google.sps.TimeRange;
-import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-@WebServlet("/query")
+/**
+ * Finds meeting times for a request. Answers that are already cached are sent right away; anything
+ * else is handed to a bounded pool of workers so slow queries don't tie up the container's threads.
+ * If the pool is full, or a query takes longer than {@link #TIMEOUT_MILLIS}, the client gets a 503
+ * and may try again.
+ *
+ * <p>Requests that need resources, such as rooms, are rejected with a 400, since the answer here is
+ * only a list of times.
+ *
+ * <p>A query that has spent {@link #BUDGET_MILLIS}, counting the time it waited for a worker, stops
+ * looking at optional attendees and answers with what it has. Such answers carry a {@code
+ * X-Partial-Result: true} header and are not cached.
+ */
+@WebServlet(urlPatterns = "/query", asyncSupported = true)
 public class QueryServlet extends HttpServlet {
+  static final long TIMEOUT_MILLIS = 5000;
+  static final long BUDGET_MILLIS = 2000;
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-
+    final long received = System.nanoTime();
     // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    final MeetingRequest meetingRequest = Json.GSON.fromJson(request.getReader(), MeetingRequest.class);
+    // This endpoint only answers with times. Finding rooms as well takes answers that name them, so
+    // a request for rooms is turned away rather than answered without them.
+    if (!meetingRequest.getResourcePools().isEmpty()) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "resource pools are not supported here");
+      return;
+    }
+
+    // Answer right away if the same request was answered since the calendar last changed.
+    final long version = Calendars.CALENDAR.getVersion();
+    Collection<TimeRange> cached = Calendars.QUERY_CACHE.get(meetingRequest, version);
+    if (cached != null) {
+      Json.writeTimeRanges(response, cached);
+      return;
+    }
+
+    // Behind a filter that doesn't support async requests, answer on this thread.
+    if (!request.isAsyncSupported()) {
+      try {
+        write(response, answer(meetingRequest, version, received));
+      } catch (IllegalArgumentException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      }
+      return;
+    }
+
+    final AsyncContext async = request.startAsync();
+    async.setTimeout(TIMEOUT_MILLIS);
+    final Reply reply = new Reply(async);
+    async.addListener(new AsyncListener() {
+      @Override
+      public void onTimeout(AsyncEvent event) throws IOException {
+        // If the worker is writing its answer, this waits for it to finish and then does nothing.
+        synchronized (reply) {
+          if (reply.claim()) {
+            Calendars.QUERY_WORKERS.recordTimeout();
+            sendUnavailable(async, "the query took too long");
+          }
+        }
+      }
+
+      @Override
+      public void onComplete(AsyncEvent event) {}
+
+      @Override
+      public void onError(AsyncEvent event) {
+        synchronized (reply) {
+          reply.claim();
+        }
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {}
+    });
+
+    boolean accepted = Calendars.QUERY_WORKERS.submit(new Runnable() {
+      @Override
+      public void run() {
+        // Don't spend a worker on a query whose client has already been turned away.
+        if (reply.isClaimed()) {
+          return;
+        }
+        QueryResult answer;
+        try {
+          answer = answer(meetingRequest, version, received);
+        } catch (IllegalArgumentException e) {
+          // A request the query rejects, such as one with a weight that isn't positive, is the
+          // client's mistake.
+          reply.sendStatus(HttpServletResponse.SC_BAD_REQUEST);
+          return;
+        } catch (RuntimeException e) {
+          // Rethrown once the client has its answer, so the workers count the query as failed.
+          reply.sendStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+          throw e;
+        }
+        synchronized (reply) {
+          if (reply.claim()) {
+            try {
+              write((HttpServletResponse) async.getResponse(), answer);
+            } catch (IOException e) {
+              // The client has gone away; there is nobody left to tell.
+            } finally {
+              async.complete();
+            }
+          }
+        }
+      }
+    });
+    if (!accepted) {
+      synchronized (reply) {
+        if (reply.claim()) {
+          sendUnavailable(async, "too many queries are waiting");
+        }
+      }
+    }
+  }
 
-    // Find the possible meeting times.
+  /**
+   * Finds the possible meeting times within what is left of the budget, and caches them unless the
+   * budget ran out.
+   */
+  private static QueryResult answer(MeetingRequest meetingRequest, long version, long received) {
+    long remaining = Math.max(0, TimeUnit.MILLISECONDS.toNanos(BUDGET_MILLIS) - (System.nanoTime() - received));
     FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    QueryResult answer = findMeetingQuery.query(Calendars.CALENDAR, meetingRequest, Horizon.WHOLE_DAY,
+        remaining, TimeUnit.NANOSECONDS);
+    if (!answer.isPartial()) {
+      Calendars.QUERY_CACHE.put(meetingRequest, version, answer.getTimes());
+    }
+    return answer;
+  }
+
+  private static void write(HttpServletResponse response, QueryResult answer) throws IOException {
+    if (answer.isPartial()) {
+      response.setHeader("X-Partial-Result", "true");
+    }
+    Json.writeTimeRanges(response, answer.getTimes());
+  }
+
+  /**
+   * Who answers an async request: the worker, the timeout or the rejection, whichever claims it
+   * first. Each writes its response and completes the request while holding the reply's lock, so
+   * the container can't complete the request in the middle of another's write.
+   */
+  private static final class Reply {
+    private final AsyncContext async;
+    private volatile boolean claimed;
 
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+    Reply(AsyncContext async) {
+      this.async = async;
+    }
 
-    // Send the JSON back as the response
+    boolean isClaimed() {
+      return claimed;
+    }
+
+    /**
+     * Returns {@code true} if nobody has answered yet, in which case the caller must. Must be
+     * called holding the reply's lock.
+     */
+    boolean claim() {
+      if (claimed) {
+        return false;
+      }
+      claimed = true;
+      return true;
+    }
+
+    synchronized void sendStatus(int status) {
+      if (claim()) {
+        ((HttpServletResponse) async.getResponse()).setStatus(status);
+        async.complete();
+      }
+    }
+  }
+
+  private static void sendUnavailable(AsyncContext async, String reason) throws IOException {
+    HttpServletResponse response = (HttpServletResponse) async.getResponse();
+    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    response.setHeader("Retry-After", "1");
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+
+    JsonObject error = new JsonObject();
+    error.addProperty("error", reason);
+    response.getWriter().println(error);
+    async.complete();
   }
 }
@@ -0,0 +1,46 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonObject;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports how busy the query workers are and how many queries were turned away.
+ */
+@WebServlet("/query-worker-stats")
+public class QueryWorkerStatsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    QueryWorkers workers = Calendars.QUERY_WORKERS;
+    JsonObject stats = new JsonObject();
+    stats.addProperty("workers", workers.getWorkerCount());
+    stats.addProperty("active", workers.getActiveCount());
+    stats.addProperty("queued", workers.getQueuedCount());
+    stats.addProperty("accepted", workers.getAcceptedCount());
+    stats.addProperty("rejected", workers.getRejectedCount());
+    stats.addProperty("completed", workers.getCompletedCount());
+    stats.addProperty("failed", workers.getFailedCount());
+    stats.addProperty("timedOut", workers.getTimedOutCount());
+
+    response.setContentType("application/json");
+    response.getWriter().println(stats);
+  }
+}
@@ -0,0 +1,165 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs queries off the servlet container's threads, with a limit on how many run at once and how
+ * many may wait. A query that would go past the limit is turned away right away rather than queued
+ * behind slow ones, so a burst of heavy queries can't starve everything else.
+ *
+ * <p>Queries run on a fixed pool of daemon threads. Queries are CPU-bound, and each worker keeps its
+ * own scratch space for them in {@code FindMeetingQuery}, so long-lived platform threads suit them
+ * better than a fresh virtual thread per query, which would start from nothing every time. The pool
+ * is safe to use from multiple threads.
+ */
+final class QueryWorkers {
+  private final ExecutorService executor;
+  private final int workers;
+  private final int capacity;
+
+  // Queries accepted and not yet finished, whether waiting or running.
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicLong accepted = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong timedOut = new AtomicLong();
+
+  /**
+   * @param workers The most queries that may run at once. Must be positive.
+   * @param queueLimit The most queries that may wait for a worker. Must not be negative.
+   */
+  QueryWorkers(int workers, int queueLimit) {
+    if (workers <= 0) {
+      throw new IllegalArgumentException("workers must be positive");
+    }
+    if (queueLimit < 0) {
+      throw new IllegalArgumentException("queue limit cannot be negative");
+    }
+
+    this.workers = workers;
+    this.capacity = workers + queueLimit;
+    // Admission is limited before tasks get here, so the queue never grows past the limit.
+    this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(), new DaemonThreads());
+  }
+
+  /**
+   * Runs {@code task} on a worker. Returns {@code false}, without running it, if the workers are
+   * all busy and the queue is full.
+   */
+  boolean submit(final Runnable task) {
+    if (pending.incrementAndGet() > capacity) {
+      pending.decrementAndGet();
+      rejected.incrementAndGet();
+      return false;
+    }
+
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            active.incrementAndGet();
+            try {
+              task.run();
+              completed.incrementAndGet();
+            } catch (RuntimeException | Error e) {
+              failed.incrementAndGet();
+              throw e;
+            } finally {
+              active.decrementAndGet();
+            }
+          } finally {
+            pending.decrementAndGet();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // The pool has been shut down.
+      pending.decrementAndGet();
+      rejected.incrementAndGet();
+      return false;
+    }
+    accepted.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Counts a query that took too long and was answered with an error instead.
+   */
+  void recordTimeout() {
+    timedOut.incrementAndGet();
+  }
+
+  int getWorkerCount() {
+    return workers;
+  }
+
+  int getActiveCount() {
+    return active.get();
+  }
+
+  int getQueuedCount() {
+    return Math.max(pending.get() - active.get(), 0);
+  }
+
+  long getAcceptedCount() {
+    return accepted.get();
+  }
+
+  long getRejectedCount() {
+    return rejected.get();
+  }
+
+  long getCompletedCount() {
+    return completed.get();
+  }
+
+  long getFailedCount() {
+    return failed.get();
+  }
+
+  long getTimedOutCount() {
+    return timedOut.get();
+  }
+
+  void shutdown() {
+    executor.shutdown();
+  }
+
+  private static final class DaemonThreads implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "query-worker-" + count.incrementAndGet());
+      // Never keep the server from shutting down.
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,55 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeRegistryTest {
+  @Test
+  public void idsAreDenseAndStable() {
+    AttendeeRegistry registry = new AttendeeRegistry();
+
+    Assert.assertEquals(0, registry.intern("Person A"));
+    Assert.assertEquals(1, registry.intern("Person B"));
+    Assert.assertEquals(0, registry.intern("Person A"));
+    Assert.assertEquals(2, registry.size());
+    Assert.assertEquals("Person B", registry.nameOf(1));
+  }
+
+  @Test
+  public void lookupNeverGrowsTheRegistry() {
+    AttendeeRegistry registry = new AttendeeRegistry();
+
+    Assert.assertEquals(AttendeeRegistry.UNKNOWN, registry.lookup("Person A"));
+    Assert.assertEquals(0, registry.size());
+  }
+
+  @Test
+  public void eventsShareIdsForTheSamePerson() {
+    Event first = new Event("Event 1", TimeRange.fromStartDuration(0, 30), Arrays.asList("Zed", "Amy"));
+    Event second = new Event("Event 2", TimeRange.fromStartDuration(60, 30), Arrays.asList("Amy"));
+
+    int amy = AttendeeRegistry.shared().lookup("Amy");
+    Assert.assertTrue(Arrays.binarySearch(first.getAttendeeIds(), amy) >= 0);
+    Assert.assertArrayEquals(new int[] {amy}, second.getAttendeeIds());
+    Assert.assertTrue(first.getAttendees().contains("Zed"));
+  }
+}
@@ -0,0 +1,119 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AvailabilityBitmapTest {
+  @Test
+  public void longRunsCrossWordBoundaries() {
+    // Free    : |--60--|     |---------300---------|
+    // Busy    :        |-100-|                     |--...
+    AvailabilityBitmap bitmap = new AvailabilityBitmap();
+    bitmap.reset(0, 500, AvailabilityBitmap.Granularity.ONE_MINUTE);
+    bitmap.markBusy(60, 160);
+    bitmap.markBusy(460, 500);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(0, 60, false),
+        TimeRange.fromStartEnd(160, 460, false)), findFree(bitmap, 60));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(160, 460, false)), findFree(bitmap, 61));
+    Assert.assertEquals(Arrays.asList(), findFree(bitmap, 301));
+  }
+
+  @Test
+  public void coarseSlotsRoundFreeTimeInward() {
+    // With 15 minute slots, a meeting from 9:05 to 9:20 keeps the whole 9:00 to 9:30 stretch busy,
+    // and the span's ragged edges are dropped.
+    AvailabilityBitmap bitmap = new AvailabilityBitmap();
+    bitmap.reset(482, 1000, AvailabilityBitmap.Granularity.FIFTEEN_MINUTES);
+    bitmap.markBusy(545, 560);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(495, 540, false),
+        TimeRange.fromStartEnd(570, 990, false)), findFree(bitmap, 1));
+  }
+
+  @Test
+  public void emptyRangesSplitFreeTime() {
+    // With 15 minute slots, a point on a slot boundary splits the free time there, and one inside a
+    // slot blocks the whole slot.
+    AvailabilityBitmap bitmap = new AvailabilityBitmap();
+    bitmap.reset(0, 120, AvailabilityBitmap.Granularity.FIFTEEN_MINUTES);
+    bitmap.markBusy(30, 30);
+    bitmap.markBusy(80, 80);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(0, 30, false),
+        TimeRange.fromStartEnd(30, 75, false), TimeRange.fromStartEnd(90, 120, false)),
+        findFree(bitmap, 1));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(30, 75, false)), findFree(bitmap, 31));
+  }
+
+  @Test
+  public void matchesAMinuteByMinuteModel() {
+    Random random = new Random(42);
+    AvailabilityBitmap bitmap = new AvailabilityBitmap();
+
+    for (int round = 0; round < 200; round++) {
+      int size = 1 + random.nextInt(700);
+      boolean[] busy = new boolean[size];
+      // An empty range inside the span splits free time without taking any of it.
+      boolean[] splits = new boolean[size];
+      bitmap.reset(0, size, AvailabilityBitmap.Granularity.ONE_MINUTE);
+      for (int event = random.nextInt(20); event > 0; event--) {
+        int start = random.nextInt(size);
+        int end = Math.min(size, start + random.nextInt(90));
+        bitmap.markBusy(start, end);
+        Arrays.fill(busy, start, end, true);
+        if (start == end && start > 0) {
+          splits[start] = true;
+        }
+      }
+
+      int minMinutes = 1 + random.nextInt(200);
+      List<TimeRange> expected = new ArrayList<>();
+      int i = 0;
+      while (i < size) {
+        int start = i;
+        while (i < size && !busy[i] && (i == start || !splits[i])) {
+          i++;
+        }
+        if (i - start >= minMinutes) {
+          expected.add(TimeRange.fromStartEnd(start, i, false));
+        }
+        i = Math.max(i, start + 1);
+      }
+      Assert.assertEquals(expected, findFree(bitmap, minMinutes));
+    }
+  }
+
+  private static List<TimeRange> findFree(AvailabilityBitmap bitmap, int minMinutes) {
+    RangeBuffer buffer = new RangeBuffer();
+    bitmap.findFree(minMinutes, buffer);
+
+    List<TimeRange> times = new ArrayList<>();
+    for (int i = 0; i < buffer.size(); i++) {
+      times.add(TimeRange.fromStartEnd(buffer.start(i), buffer.end(i), false));
+    }
+    return times;
+  }
+}
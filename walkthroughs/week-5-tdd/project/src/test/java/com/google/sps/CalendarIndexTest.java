@@ -0,0 +1,55 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  @Test
+  public void busyTimesAreSortedAndMerged() {
+    // Events  :   |--A--|  |--A,B--|
+    //                |--A--|
+    // Busy A  :   |-----------------|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(300, 400, false), Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(100, 200, false), Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(150, 300, false), Arrays.asList(PERSON_A)));
+
+    CalendarIndex index = CalendarIndex.of(events);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(100, 400, false)), index.getBusyTimes(PERSON_A));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(300, 400, false)), index.getBusyTimes(PERSON_B));
+    Assert.assertEquals(3, index.getEventCount());
+  }
+
+  @Test
+  public void unknownPersonIsNeverBusy() {
+    CalendarIndex index = CalendarIndex.of(Collections.<Event>emptyList());
+
+    Assert.assertEquals(Collections.emptyList(), index.getBusyTimes(PERSON_C));
+  }
+}
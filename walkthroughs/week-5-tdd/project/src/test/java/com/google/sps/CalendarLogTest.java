@@ -0,0 +1,177 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarLogTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final Comparator<Event> BY_TITLE = new Comparator<Event>() {
+    @Override
+    public int compare(Event a, Event b) {
+      return a.getTitle().compareTo(b.getTitle());
+    }
+  };
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void changesSurviveReopening() throws IOException {
+    Path directory = folder.newFolder().toPath();
+    CalendarLog log = CalendarLog.open(directory, new IncrementalCalendar());
+    log.addEvents(Arrays.asList(event(1, PERSON_A), event(2, PERSON_B), event(3, PERSON_A)));
+    Assert.assertTrue(log.removeEvent(event(2, PERSON_B)));
+    Assert.assertFalse(log.removeEvent(event(4, PERSON_B)));
+    log.close();
+
+    IncrementalCalendar recovered = new IncrementalCalendar();
+    CalendarLog reopened = CalendarLog.open(directory, recovered);
+
+    // Removals are logged before anyone knows whether they find the event; replaying them is harmless.
+    Assert.assertEquals(5, reopened.getRecoveredRecordCount());
+    Assert.assertEquals(Arrays.asList(event(1, PERSON_A), event(3, PERSON_A)), sorted(recovered.getEvents()));
+    reopened.close();
+  }
+
+  @Test
+  public void tornRecordIsDropped() throws IOException {
+    Path directory = folder.newFolder().toPath();
+    CalendarLog log = CalendarLog.open(directory, new IncrementalCalendar());
+    log.addEvent(event(1, PERSON_A));
+    log.addEvent(event(2, PERSON_A));
+    log.close();
+    // A crash in the middle of writing the next record leaves part of its frame behind.
+    Files.write(directory.resolve("wal-0"), new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+    CalendarLog reopened = CalendarLog.open(directory, new IncrementalCalendar());
+    Assert.assertEquals(2, reopened.getRecoveredRecordCount());
+    reopened.addEvent(event(3, PERSON_A));
+    reopened.close();
+
+    IncrementalCalendar again = new IncrementalCalendar();
+    CalendarLog.open(directory, again).close();
+    Assert.assertEquals(Arrays.asList(event(1, PERSON_A), event(2, PERSON_A), event(3, PERSON_A)),
+        sorted(again.getEvents()));
+  }
+
+  @Test
+  public void onlyAnUnusedDirectoryIsNew() throws IOException {
+    Path directory = folder.newFolder().toPath();
+    CalendarLog log = CalendarLog.open(directory, new IncrementalCalendar());
+    Assert.assertTrue(log.isNew());
+    log.addEvent(event(1, PERSON_A));
+    log.removeEvent(event(1, PERSON_A));
+    log.close();
+
+    IncrementalCalendar recovered = new IncrementalCalendar();
+    CalendarLog reopened = CalendarLog.open(directory, recovered);
+    Assert.assertFalse(reopened.isNew());
+    Assert.assertEquals(0, recovered.getEventCount());
+    reopened.close();
+  }
+
+  @Test
+  public void compactionKeepsEveryEvent() throws IOException {
+    Path directory = folder.newFolder().toPath();
+    IncrementalCalendar calendar = new IncrementalCalendar();
+    CalendarLog log = CalendarLog.open(directory, calendar, 500);
+    List<Event> expected = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      log.addEvent(event(i, PERSON_A));
+      expected.add(event(i, PERSON_A));
+    }
+    for (int i = 0; i < 40; i += 2) {
+      log.removeEvent(event(i, PERSON_A));
+      expected.remove(event(i, PERSON_A));
+    }
+    log.close();
+    // Compaction runs in the background, and closing waits for it.
+    long generation = log.getGeneration();
+
+    IncrementalCalendar recovered = new IncrementalCalendar();
+    CalendarLog.open(directory, recovered).close();
+
+    Assert.assertTrue(generation > 0);
+    Assert.assertEquals(sorted(expected), sorted(recovered.getEvents()));
+    // Only the newest generation is left.
+    File[] files = directory.toFile().listFiles();
+    Assert.assertTrue(files.length <= 2);
+  }
+
+  @Test
+  public void concurrentWritersAreAllKept() throws Exception {
+    Path directory = folder.newFolder().toPath();
+    final CalendarLog log = CalendarLog.open(directory, new IncrementalCalendar());
+    Thread[] writers = new Thread[8];
+    for (int t = 0; t < writers.length; t++) {
+      final int writer = t;
+      writers[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < 25; i++) {
+              log.addEvent(event(writer * 100 + i, PERSON_B));
+            }
+          } catch (IOException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      });
+      writers[t].start();
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    long syncs = log.getSyncCount();
+    log.close();
+
+    IncrementalCalendar recovered = new IncrementalCalendar();
+    CalendarLog.open(directory, recovered).close();
+
+    Assert.assertTrue(syncs <= 200);
+    Assert.assertEquals(200, recovered.getEventCount());
+  }
+
+  private static Event event(int i, String person) {
+    return new Event(String.format("Event %03d", i), TimeRange.fromStartDuration(i * 5, 5), Arrays.asList(person));
+  }
+
+  private static List<Event> sorted(List<Event> events) {
+    List<Event> copy = new ArrayList<>(events);
+    Collections.sort(copy, BY_TITLE);
+    return copy;
+  }
+}
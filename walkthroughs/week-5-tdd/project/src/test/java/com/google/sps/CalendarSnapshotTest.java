@@ -0,0 +1,140 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarSnapshotTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void mappedSnapshotAnswersLikeTheEvents() throws IOException {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, 30), Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, 30), Arrays.asList(PERSON_B)));
+    Path file = folder.newFile("calendar.snapshot").toPath();
+    CalendarSnapshot.write(events, file);
+
+    CalendarSnapshot snapshot = CalendarSnapshot.open(file);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 30);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    Assert.assertEquals(2, snapshot.getEventCount());
+    Assert.assertEquals(query.query(events, request), query.query(snapshot, request));
+  }
+
+  @Test
+  public void busyTimesMatchTheIndex() throws IOException {
+    String[] people = {PERSON_A, PERSON_B, "Person C", "Person D"};
+    Random random = new Random(11);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      events.add(new Event("Event " + i,
+          TimeRange.fromStartDuration(random.nextInt(TimeRange.MINUTES_PER_DAY - 120), 5 + random.nextInt(115)),
+          Arrays.asList(people[random.nextInt(people.length)], people[random.nextInt(people.length)])));
+    }
+    CalendarIndex index = CalendarIndex.of(events);
+    CalendarSnapshot snapshot = CalendarSnapshot.of(ByteBuffer.wrap(toBytes(events)));
+
+    for (String person : people) {
+      int id = AttendeeRegistry.shared().lookup(person);
+      for (int from = 0; from < TimeRange.MINUTES_PER_DAY; from += 97) {
+        RangeBuffer expected = new RangeBuffer();
+        RangeBuffer actual = new RangeBuffer();
+        index.collectBusyTimes(id, from, from + 180, expected);
+        snapshot.collectBusyTimes(id, from, from + 180, actual);
+
+        // A range that began well before the span may be reported as starting later, but never
+        // after the span starts.
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+          Assert.assertEquals(expected.end(i), actual.end(i));
+          Assert.assertTrue(actual.start(i) >= expected.start(i));
+          Assert.assertTrue(actual.start(i) <= Math.max(expected.start(i), from));
+        }
+      }
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void otherFilesAreRejected() throws IOException {
+    CalendarSnapshot.of(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+        17, 18, 19, 20}));
+  }
+
+  @Test(expected = IOException.class)
+  public void truncatedSnapshotIsRejected() throws IOException {
+    byte[] bytes = toBytes(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, 30), Arrays.asList(PERSON_A))));
+    CalendarSnapshot.of(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 3)));
+  }
+
+  @Test
+  public void corruptColumnsAreRejectedAtOpen() throws IOException {
+    // One event for one person: a 20 byte header, then the start at 20, the duration at 24, the
+    // offsets at 28 and 32, and the posting at 36.
+    byte[] bytes = toBytes(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, 30), Arrays.asList(PERSON_A))));
+    int[][] corruptions = {
+        {8, 0x40000001}, // so many events that their columns would wrap past the end of an int
+        {16, -1}, // a negative longest duration
+        {24, 31}, // a duration longer than the longest
+        {28, 1}, // postings that don't start at 0
+        {36, 1}, // a posting to an event that isn't there
+        {36, -1},
+    };
+
+    for (int[] corruption : corruptions) {
+      ByteBuffer corrupt = ByteBuffer.wrap(bytes.clone());
+      corrupt.putInt(corruption[0], corruption[1]);
+      try {
+        CalendarSnapshot.of(corrupt);
+        Assert.fail("accepted " + corruption[1] + " at " + corruption[0]);
+      } catch (IOException expected) {
+        // The file is rejected before any query can trip over it.
+      }
+    }
+  }
+
+  private static byte[] toBytes(Collection<Event> events) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CalendarSnapshot.write(events, out);
+    return out.toByteArray();
+  }
+}
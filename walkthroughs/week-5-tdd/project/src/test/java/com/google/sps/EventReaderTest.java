@@ -0,0 +1,72 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventReaderTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  @Test
+  public void readsOneEventPerLine() throws IOException {
+    Event first = new Event("Event 1", TimeRange.fromStartDuration(480, 30), Arrays.asList(PERSON_A));
+    Event second =
+        new Event("Event 2", TimeRange.fromStartDuration(600, 60), Arrays.asList(PERSON_A, PERSON_B));
+    Gson gson = new Gson();
+    String lines = gson.toJson(first) + "\n\n" + gson.toJson(second) + "\n";
+
+    EventReader reader = new EventReader(new StringReader(lines));
+    List<Event> events = new ArrayList<>();
+
+    Assert.assertEquals(2, reader.next(events, 10));
+    Assert.assertEquals(Arrays.asList(first, second), events);
+    Assert.assertNull(reader.next());
+  }
+
+  @Test
+  public void eventsReadBackAreIndexed() throws IOException {
+    // Gson would leave the attendee ids unset; events from the reader must be usable in an index.
+    String line = "{\"title\":\"Event 1\",\"when\":{\"start\":60,\"duration\":30},"
+        + "\"attendees\":[\"" + PERSON_B + "\"],\"room\":{\"name\":\"ignored\"}}";
+
+    Event event = new EventReader(new StringReader(line)).next();
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartDuration(60, 30)),
+        CalendarIndex.of(Arrays.asList(event)).getBusyTimes(PERSON_B));
+  }
+
+  @Test(expected = MalformedJsonException.class)
+  public void eventWithoutTimeIsRejected() throws IOException {
+    new EventReader(new StringReader("{\"title\":\"Event 1\",\"attendees\":[]}")).next();
+  }
+
+  @Test(expected = MalformedJsonException.class)
+  public void wrongTypeIsRejected() throws IOException {
+    new EventReader(new StringReader("{\"title\":\"Event 1\",\"when\":[]}")).next();
+  }
+}
@@ -14,11 +14,15 @@
 
 package com.google.sps;
 
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -35,6 +39,7 @@ public final class FindMeetingQueryTest {
   private static final String PERSON_A = "Person A";
   private static final String PERSON_B = "Person B";
   private static final String PERSON_C = "Person C";
+  private static final String PERSON_D = "Person D";
 
   // All dates are the first day of the year 2020.
   private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
@@ -44,7 +49,9 @@ public final class FindMeetingQueryTest {
   private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
   private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
   private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 00);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
 
+  private static final int DURATION_15_MINUTES = 15;
   private static final int DURATION_30_MINUTES = 30;
   private static final int DURATION_60_MINUTES = 60;
   private static final int DURATION_90_MINUTES = 90;
@@ -419,5 +426,469 @@ public final class FindMeetingQueryTest {
     Assert.assertEquals(expected, actual);
   }
 
-}
+  @Test
+  public void mostOptionalAttendeesAreChosen() {
+    // Nobody can join at every time, so the meeting goes where two of the three optional attendees
+    // can make it.
+    //
+    // Events  : |--A--|
+    // Optional:       |--B--|
+    //                 |--C--|           |--D--|
+    // Day     : |-----------------------------|
+    // Options :             |-----1-----|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_B, PERSON_C)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_D)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_D);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void manyOptionalAttendees() {
+    // Every optional attendee is busy for a different quarter hour, so only the stretches outside all
+    // of their meetings work for everyone. Enumerating every subset of 40 people would never finish.
+    List<Event> events = new ArrayList<>();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    for (int i = 0; i < 40; i++) {
+      String person = "Optional " + i;
+      events.add(new Event("Event " + i,
+          TimeRange.fromStartDuration(TIME_0800AM + i * DURATION_15_MINUTES, DURATION_15_MINUTES),
+          Arrays.asList(person)));
+      request.addOptionalAttendee(person);
+    }
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0800AM + 40 * DURATION_15_MINUTES, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void heavierOptionalAttendeeOutweighsSeveralLighterOnes() {
+    // Person B matters three times as much as Persons C and D, who are both busy when B is free. The
+    // meeting goes where B can make it, even though that leaves out two people.
+    //
+    // Optional: |--C,D--|
+    //                    |--B--|
+    // Day     : |-----------------------------|
+    // Options :          |--1--|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_C, PERSON_D)),
+        new Event("Event 2", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B, 3);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_D);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void bitmapAndSweepEnginesAgree() {
+    // Both engines must find the same times on a busy calendar with overlapping, nested,
+    // back-to-back and zero-length events.
+    Random random = new Random(42);
+    List<String> people = Arrays.asList(PERSON_A, PERSON_B, PERSON_C, PERSON_D);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+      int duration = random.nextInt(4) == 0 ? 0 : 5 + random.nextInt(90);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+          Arrays.asList(people.get(random.nextInt(people.size())))));
+    }
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_15_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> bitmap = new FindMeetingQuery(FindMeetingQuery.Engine.BITMAP).query(events, request);
+    Collection<TimeRange> sweep = new FindMeetingQuery(FindMeetingQuery.Engine.SWEEP).query(events, request);
+
+    Assert.assertEquals(bitmap, sweep);
+  }
+
+  @Test
+  public void coarseSlotsTreatPartlyBusySlotsAsBusy() {
+    // With 15 minute slots, Person A's meeting from 8:45 to 9:05 blocks the slots from 8:45 to 9:15.
+    //
+    // Events  :       |--A--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|       |------2--------|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0845AM, TIME_0900AM + 5, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = new FindMeetingQuery(FindMeetingQuery.Engine.BITMAP,
+        AvailabilityBitmap.Granularity.FIFTEEN_MINUTES).query(events, request);
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0845AM, false),
+        TimeRange.fromStartEnd(TIME_0900AM + 15, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void suggestionsPutOptionalAttendeesFirst() {
+    // Person C is optional and busy all morning, so the best quarter-hour starts are the first ones
+    // after noon, inside working hours and with Person C.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.getTimeInMinutes(12, 0), false),
+            Arrays.asList(PERSON_C)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    List<MeetingSuggestion> actual = query.suggest(events, request, 3);
+
+    Assert.assertEquals(3, actual.size());
+    Assert.assertEquals(TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(12, 0), DURATION_30_MINUTES),
+        actual.get(0).getWhen());
+    Assert.assertEquals(TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(12, 15), DURATION_30_MINUTES),
+        actual.get(1).getWhen());
+    Assert.assertEquals(TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(12, 30), DURATION_30_MINUTES),
+        actual.get(2).getWhen());
+    Assert.assertEquals(1, actual.get(0).getOptionalAttendeeWeight());
+  }
+
+  @Test
+  public void suggestionsAvoidLeavingSlivers() {
+    // Person A is busy from 10:00. A meeting at 9:15 would strand the 15 minutes before 10:00, so it
+    // ranks below 9:00 and 9:30, which leave nothing unusable behind.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<MeetingSuggestion> actual = query.suggest(events, request, 3);
+
+    List<TimeRange> times = new ArrayList<>();
+    for (MeetingSuggestion suggestion : actual) {
+      times.add(suggestion.getWhen());
+    }
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+        TimeRange.fromStartDuration(TIME_0930AM, DURATION_30_MINUTES),
+        TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(9, 15), DURATION_30_MINUTES)), times);
+  }
+
+  @Test
+  public void generousLimitReturnsEveryCandidate() {
+    // Person A is busy from 10:00, leaving quarter-hour starts from 0:00 to 9:30.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<MeetingSuggestion> actual = query.suggest(events, request, Integer.MAX_VALUE);
+
+    Assert.assertEquals(TIME_0930AM / 15 + 1, actual.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void limitMustBePositive() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    query.suggest(NO_EVENTS, request, 0);
+  }
+
+  @Test
+  public void onlyRoomsBigEnoughAreUsed() {
+    // Room 1 is free all day but only seats 4, so the meeting of 5 waits for Room 2.
+    Resource small = new Resource("Room 1", 4);
+    Resource large = new Resource("Room 2", 10);
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+            Arrays.asList(large.getName())),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(small.getName())));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addResourcePool(new ResourcePool("Rooms", Arrays.asList(small, large)), 5);
 
+    List<MeetingOption> actual = query.queryWithResources(events, request);
+
+    Assert.assertEquals(Arrays.asList(new MeetingOption(
+        TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true), Arrays.asList(large))), actual);
+  }
+
+  @Test
+  public void dayIsSplitBetweenRooms() {
+    // Room 1 is busy in the morning and Room 2 in the afternoon. A meeting can happen all day, just
+    // not in the same room.
+    //
+    // Room 1  : |--------|
+    // Room 2  :           |--------|
+    // Options : |--Room 2-|--Room 1-|
+    Resource first = new Resource("Room 1", 8);
+    Resource second = new Resource("Room 2", 8);
+    int noon = TimeRange.getTimeInMinutes(12, 0);
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, noon, false),
+            Arrays.asList(first.getName())),
+        new Event("Event 2", TimeRange.fromStartEnd(noon, TimeRange.END_OF_DAY, true),
+            Arrays.asList(second.getName())));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addResourcePool(new ResourcePool("Rooms", Arrays.asList(first, second)), 1);
+
+    List<MeetingOption> actual = query.queryWithResources(events, request);
+
+    Assert.assertEquals(Arrays.asList(
+        new MeetingOption(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, noon, false), Arrays.asList(second)),
+        new MeetingOption(TimeRange.fromStartEnd(noon, TimeRange.END_OF_DAY, true), Arrays.asList(first))),
+        actual);
+  }
+
+  @Test
+  public void manyRoomsAreSearchedInParallel() {
+    // Only one of 200 rooms is free in the afternoon, and the only attendee is busy all morning.
+    int noon = TimeRange.getTimeInMinutes(12, 0);
+    List<Resource> rooms = new ArrayList<>();
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      Resource room = new Resource("Room " + i, 10);
+      rooms.add(room);
+      if (i != 137) {
+        events.add(new Event("Event " + i, TimeRange.fromStartEnd(noon, TimeRange.END_OF_DAY, true),
+            Arrays.asList(room.getName())));
+      }
+    }
+    events.add(new Event("Morning", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, noon, false),
+        Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addResourcePool(new ResourcePool("Rooms", rooms), 10);
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      List<MeetingOption> actual =
+          query.queryWithResources(CalendarIndex.of(events), request, Horizon.WHOLE_DAY, pool);
+
+      Assert.assertEquals(Arrays.asList(new MeetingOption(
+          TimeRange.fromStartEnd(noon, TimeRange.END_OF_DAY, true), Arrays.asList(rooms.get(137)))), actual);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void multiDayHorizonRespectsWorkingHours() {
+    // Three working days from 9:00 to 17:00. Person A is busy on the morning of the second day and
+    // all of the third, so only the first day and the second afternoon work.
+    int firstDay = 18262; // 2020-01-01
+    int dayTwo = TimeRange.startOfEpochDay(firstDay + 1);
+    int dayThree = TimeRange.startOfEpochDay(firstDay + 2);
+    int nineAm = TimeRange.getTimeInMinutes(9, 0);
+    int fivePm = TimeRange.getTimeInMinutes(17, 0);
+    Horizon horizon = Horizon.ofDays(firstDay, 3, nineAm, fivePm);
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(dayTwo + TIME_0800AM, dayTwo + TIME_1100AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(dayThree, TimeRange.MINUTES_PER_DAY),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.startOfEpochDay(firstDay) + nineAm,
+            TimeRange.startOfEpochDay(firstDay) + fivePm, false),
+        TimeRange.fromStartEnd(dayTwo + TIME_1100AM, dayTwo + fivePm, false));
+
+    for (FindMeetingQuery.Engine engine : FindMeetingQuery.Engine.values()) {
+      Collection<TimeRange> actual = new FindMeetingQuery(engine).query(CalendarIndex.of(events), request, horizon);
+      Assert.assertEquals(expected, actual);
+    }
+  }
+
+  @Test
+  public void batchAnswersMatchSingleQueriesInOrder() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+
+    List<MeetingRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      List<String> people = i % 3 == 0 ? Arrays.asList(PERSON_A)
+          : i % 3 == 1 ? Arrays.asList(PERSON_B) : Arrays.asList(PERSON_A, PERSON_B);
+      requests.add(new MeetingRequest(people, DURATION_30_MINUTES + i));
+    }
+
+    List<Collection<TimeRange>> expected = new ArrayList<>();
+    for (MeetingRequest request : requests) {
+      expected.add(query.query(events, request));
+    }
+
+    Assert.assertEquals(expected, query.queryAll(events, requests));
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      Assert.assertEquals(expected, query.queryAll(events, requests, pool));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void reusedContextGivesFreshAnswers() {
+    // A context carries buffers from one query to the next; a big query must not leak into a
+    // smaller one that follows it.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+    CalendarIndex calendar = CalendarIndex.of(events);
+    QueryContext context = new QueryContext();
+
+    MeetingRequest both = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest justB = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    query.query(calendar, both, Horizon.WHOLE_DAY, context);
+
+    Collection<TimeRange> actual = query.query(calendar, justB, Horizon.WHOLE_DAY, context);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void expiredBudgetFallsBackToMandatoryAttendees() {
+    // With no time left, B's morning event is never looked at, but A's always is.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    QueryResult actual =
+        query.query(CalendarIndex.of(events), request, Horizon.WHOLE_DAY, 0, TimeUnit.MILLISECONDS);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertTrue(actual.isPartial());
+    Assert.assertEquals(0, actual.getOptionalAttendeesConsidered());
+    Assert.assertEquals(expected, actual.getTimes());
+  }
+
+  @Test
+  public void budgetRunningOutKeepsTheEarliestAddedOptionalAttendees() {
+    // Looking up Person D's calendar takes longer than the whole budget, so only D, the first
+    // optional attendee added, is counted, and C and B are left out.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_D)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_1100AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+    final CalendarIndex index = CalendarIndex.of(events);
+    final int slow = AttendeeRegistry.shared().lookup(PERSON_D);
+    BusySchedule calendar = new BusySchedule() {
+      @Override
+      public void collectBusyTimes(int attendeeId, int from, int to, RangeBuffer out) {
+        if (attendeeId == slow) {
+          try {
+            Thread.sleep(200);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        index.collectBusyTimes(attendeeId, from, to, out);
+      }
+    };
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_D);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_B);
+
+    QueryResult actual = query.query(calendar, request, Horizon.WHOLE_DAY, 50, TimeUnit.MILLISECONDS);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertTrue(actual.isPartial());
+    Assert.assertEquals(1, actual.getOptionalAttendeesConsidered());
+    Assert.assertEquals(expected, actual.getTimes());
+  }
+
+  @Test
+  public void ampleBudgetGivesFullAnswer() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    CalendarIndex calendar = CalendarIndex.of(events);
+
+    QueryResult actual = query.query(calendar, request, Horizon.WHOLE_DAY, 1, TimeUnit.MINUTES);
+
+    Assert.assertFalse(actual.isPartial());
+    Assert.assertEquals(1, actual.getOptionalAttendeesConsidered());
+    Assert.assertEquals(query.query(calendar, request), actual.getTimes());
+  }
+
+  @Test
+  public void meetingsStayWithinEveryonesWorkingHours() {
+    // A works 9:00 to 17:00 in New York and B in Berlin, which overlap from 14:00 to 16:00 UTC in
+    // winter. C works in Tokyo and never overlaps with A, so C can't join.
+    WorkingHoursDirectory directory = new WorkingHoursDirectory();
+    directory.set(PERSON_A, new WorkingHours(ZoneId.of("America/New_York"), TIME_0900AM, TIME_0500PM));
+    directory.set(PERSON_B, new WorkingHours(ZoneId.of("Europe/Berlin"), TIME_0900AM, TIME_0500PM));
+    directory.set(PERSON_C, new WorkingHours(ZoneId.of("Asia/Tokyo"), TIME_0900AM, TIME_0500PM));
+    // 2020-01-06.
+    int day = TimeRange.startOfEpochDay(18267);
+    Horizon horizon = Horizon.ofDays(18267, 1, TimeRange.START_OF_DAY, TimeRange.MINUTES_PER_DAY);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.fromStartEnd(
+        day + TimeRange.getTimeInMinutes(14, 0), day + TimeRange.getTimeInMinutes(16, 0), false));
+
+    for (FindMeetingQuery.Engine engine : FindMeetingQuery.Engine.values()) {
+      FindMeetingQuery hoursQuery =
+          new FindMeetingQuery(engine, AvailabilityBitmap.Granularity.ONE_MINUTE, directory);
+      Assert.assertEquals(expected, hoursQuery.query(CalendarIndex.of(NO_EVENTS), request, horizon));
+    }
+  }
+
+  @Test
+  public void sharedWorkingHoursApplyToMandatoryAttendees() {
+    WorkingHoursDirectory directory = new WorkingHoursDirectory();
+    directory.set(PERSON_A, new WorkingHours(ZoneId.of("America/New_York"), TIME_0900AM, TIME_0500PM));
+    directory.set(PERSON_B, new WorkingHours(ZoneId.of("Europe/Berlin"), TIME_0900AM, TIME_0500PM));
+    int day = TimeRange.startOfEpochDay(18267);
+    Horizon horizon = Horizon.ofDays(18267, 1, TimeRange.START_OF_DAY, TimeRange.MINUTES_PER_DAY);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.fromStartEnd(
+        day + TimeRange.getTimeInMinutes(14, 0), day + TimeRange.getTimeInMinutes(16, 0), false));
+
+    for (FindMeetingQuery.Engine engine : FindMeetingQuery.Engine.values()) {
+      FindMeetingQuery hoursQuery =
+          new FindMeetingQuery(engine, AvailabilityBitmap.Granularity.FIFTEEN_MINUTES, directory);
+      Assert.assertEquals(expected, hoursQuery.query(CalendarIndex.of(NO_EVENTS), request, horizon));
+    }
+  }
+}
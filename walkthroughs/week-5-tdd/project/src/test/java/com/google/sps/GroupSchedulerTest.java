@@ -0,0 +1,148 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class GroupSchedulerTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+  private static final String PERSON_D = "Person D";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+
+  private static final Horizon MORNING =
+      Horizon.of(Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1200PM, false)));
+
+  private final GroupScheduler scheduler = new GroupScheduler();
+
+  @Test
+  public void interviewLoopAvoidsGreedyDeadEnd() {
+    // Taking A's interview first at 9:00 would leave no room for D, who is only free from 9:00 to
+    // 10:00.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_1000AM, TIME_1200PM, false), Arrays.asList(PERSON_D)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1100AM, TIME_1200PM, false), Arrays.asList(PERSON_B)));
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList(PERSON_C, PERSON_A), 60),
+        new MeetingRequest(Arrays.asList(PERSON_C, PERSON_B), 60),
+        new MeetingRequest(Arrays.asList(PERSON_C, PERSON_D), 60));
+
+    GroupSchedule actual = scheduler.schedule(CalendarIndex.of(events), requests, MORNING, 1,
+        TimeUnit.SECONDS, null);
+    List<TimeRange> expected = Arrays.asList(TimeRange.fromStartDuration(TIME_1100AM, 60),
+        TimeRange.fromStartDuration(TIME_1000AM, 60), TimeRange.fromStartDuration(TIME_0900AM, 60));
+
+    Assert.assertTrue(actual.isComplete());
+    Assert.assertEquals(expected, actual.getTimes());
+  }
+
+  @Test
+  public void meetingsWithoutSharedAttendeesMayOverlap() {
+    List<MeetingRequest> requests = Arrays.asList(new MeetingRequest(Arrays.asList(PERSON_A), 60),
+        new MeetingRequest(Arrays.asList(PERSON_B), 60));
+    Horizon hour = Horizon.of(Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, 60)));
+
+    GroupSchedule actual = scheduler.schedule(CalendarIndex.of(new ArrayList<Event>()), requests, hour, 1,
+        TimeUnit.SECONDS, null);
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, 60), TimeRange.fromStartDuration(TIME_0900AM, 60));
+
+    Assert.assertEquals(expected, actual.getTimes());
+  }
+
+  @Test
+  public void impossibleSetPlacesAsManyAsFit() {
+    // Two two-hour meetings for A can't both fit in three hours.
+    List<MeetingRequest> requests = Arrays.asList(new MeetingRequest(Arrays.asList(PERSON_A), 120),
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 120));
+
+    GroupSchedule actual = scheduler.schedule(CalendarIndex.of(new ArrayList<Event>()), requests, MORNING, 1,
+        TimeUnit.SECONDS, ForkJoinPool.commonPool());
+
+    Assert.assertFalse(actual.isComplete());
+    Assert.assertFalse(actual.isTimedOut());
+    Assert.assertEquals(1, actual.getPlacedCount());
+  }
+
+  @Test
+  public void expiredBudgetIsReported() {
+    List<MeetingRequest> requests = Arrays.asList(new MeetingRequest(Arrays.asList(PERSON_A), 60),
+        new MeetingRequest(Arrays.asList(PERSON_A), 60));
+
+    GroupSchedule actual = scheduler.schedule(CalendarIndex.of(new ArrayList<Event>()), requests, MORNING, 0,
+        TimeUnit.SECONDS, null);
+
+    Assert.assertTrue(actual.isTimedOut());
+    Assert.assertFalse(actual.isComplete());
+  }
+
+  @Test
+  public void parallelSearchMatchesSequentialSearch() {
+    String[] people = {PERSON_A, PERSON_B, PERSON_C, PERSON_D};
+    Random random = new Random(7);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      int start = TimeRange.getTimeInMinutes(9 + random.nextInt(8), 0);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, 30),
+          Arrays.asList(people[random.nextInt(people.length)])));
+    }
+    List<MeetingRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      requests.add(new MeetingRequest(
+          Arrays.asList(people[i % people.length], people[(i + 1) % people.length]), 30 + 15 * (i % 3)));
+    }
+    CalendarIndex calendar = CalendarIndex.of(events);
+    Horizon workday = Horizon.of(Arrays.asList(
+        TimeRange.fromStartEnd(TIME_0900AM, TimeRange.getTimeInMinutes(17, 0), false)));
+
+    GroupSchedule sequential = scheduler.schedule(calendar, requests, workday, 10, TimeUnit.SECONDS, null);
+    GroupSchedule parallel;
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      parallel = scheduler.schedule(calendar, requests, workday, 10, TimeUnit.SECONDS, pool);
+    } finally {
+      pool.shutdown();
+    }
+
+    Assert.assertTrue(sequential.isComplete());
+    Assert.assertEquals(sequential.getTimes(), parallel.getTimes());
+    for (int i = 0; i < requests.size(); i++) {
+      for (int j = i + 1; j < requests.size(); j++) {
+        if (!Collections.disjoint(requests.get(i).getAttendees(), requests.get(j).getAttendees())) {
+          Assert.assertFalse(sequential.getTimes().get(i).overlaps(sequential.getTimes().get(j)));
+        }
+      }
+    }
+  }
+}
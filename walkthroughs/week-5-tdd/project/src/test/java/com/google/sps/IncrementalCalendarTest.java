@@ -0,0 +1,140 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IncrementalCalendarTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  @Test
+  public void removingAnEventFreesItsTime() {
+    // Events  :   |--A--|
+    //                |--A,B--|
+    // Free A,B: --|          |--
+    Event first = new Event("Event 1", TimeRange.fromStartEnd(100, 200, false), Arrays.asList(PERSON_A));
+    Event second =
+        new Event("Event 2", TimeRange.fromStartEnd(150, 300, false), Arrays.asList(PERSON_A, PERSON_B));
+    IncrementalCalendar calendar = new IncrementalCalendar();
+    calendar.addEvent(first);
+    calendar.addEvent(second);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, 100, false),
+        TimeRange.fromStartEnd(300, TimeRange.END_OF_DAY, true)),
+        calendar.getFreeTimes(Arrays.asList(PERSON_A, PERSON_B), 30, Horizon.WHOLE_DAY));
+
+    Assert.assertTrue(calendar.removeEvent(second));
+    Assert.assertFalse(calendar.removeEvent(second));
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, 100, false),
+        TimeRange.fromStartEnd(200, TimeRange.END_OF_DAY, true)),
+        calendar.getFreeTimes(Arrays.asList(PERSON_A, PERSON_B), 30, Horizon.WHOLE_DAY));
+    Assert.assertEquals(Arrays.asList(first), calendar.getEvents());
+  }
+
+  @Test
+  public void duplicateEventsAreCounted() {
+    // Booking the same event twice keeps the person busy until both copies are removed.
+    Event event = new Event("Event 1", TimeRange.fromStartEnd(100, 200, false), Arrays.asList(PERSON_C));
+    IncrementalCalendar calendar = new IncrementalCalendar(Arrays.asList(event, event));
+    long version = calendar.getVersion();
+
+    calendar.removeEvent(event);
+    Assert.assertEquals(1, calendar.getEventCount());
+    Assert.assertEquals(busyTimes(CalendarIndex.of(Arrays.asList(event)), PERSON_C),
+        busyTimes(calendar, PERSON_C));
+
+    calendar.removeEvent(event);
+    Assert.assertEquals(Collections.emptyList(), busyTimes(calendar, PERSON_C));
+    Assert.assertEquals(version + 2, calendar.getVersion());
+  }
+
+  @Test
+  public void zeroLengthEventSplitsFreeTime() {
+    // Events  :        |    |--A--|
+    // Free A  : |------|----|     |---
+    // A zero-length event blocks meetings across it, but meetings may end or start right there.
+    Event point = new Event("Event 1", TimeRange.fromStartDuration(153, 0), Arrays.asList(PERSON_A));
+    Event later = new Event("Event 2", TimeRange.fromStartEnd(171, 200, false), Arrays.asList(PERSON_A));
+    IncrementalCalendar calendar = new IncrementalCalendar(Arrays.asList(point, later));
+
+    Assert.assertEquals(busyTimes(CalendarIndex.of(Arrays.asList(point, later)), PERSON_A),
+        busyTimes(calendar, PERSON_A));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, 153, false),
+        TimeRange.fromStartEnd(153, 171, false),
+        TimeRange.fromStartEnd(200, TimeRange.END_OF_DAY, true)),
+        calendar.getFreeTimes(Arrays.asList(PERSON_A), 15, Horizon.WHOLE_DAY));
+
+    Assert.assertTrue(calendar.removeEvent(point));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, 171, false),
+        TimeRange.fromStartEnd(200, TimeRange.END_OF_DAY, true)),
+        calendar.getFreeTimes(Arrays.asList(PERSON_A), 15, Horizon.WHOLE_DAY));
+  }
+
+  @Test
+  public void matchesAnIndexRebuiltAfterEveryChange() {
+    // Random adds and removes must leave the calendar with the same busy times as an index built
+    // from scratch over the events that are left.
+    Random random = new Random(42);
+    List<String> people = Arrays.asList(PERSON_A, PERSON_B, PERSON_C);
+    IncrementalCalendar calendar = new IncrementalCalendar();
+    List<Event> events = new ArrayList<>();
+
+    for (int step = 0; step < 300; step++) {
+      if (!events.isEmpty() && random.nextInt(3) == 0) {
+        Event removed = events.remove(random.nextInt(events.size()));
+        Assert.assertTrue(calendar.removeEvent(removed));
+      } else {
+        int start = random.nextInt(TimeRange.END_OF_DAY);
+        // Plenty of zero-length events, which are points rather than ranges.
+        int duration = random.nextInt(4) == 0 ? 0 : random.nextInt(120);
+        int end = Math.min(TimeRange.END_OF_DAY + 1, start + duration);
+        Event added = new Event("Event " + step, TimeRange.fromStartEnd(start, end, false),
+            people.subList(random.nextInt(people.size()), people.size()));
+        events.add(added);
+        calendar.addEvent(added);
+      }
+
+      CalendarIndex index = CalendarIndex.of(events);
+      for (String person : people) {
+        Assert.assertEquals(busyTimes(index, person), busyTimes(calendar, person));
+      }
+    }
+  }
+
+  private static List<TimeRange> busyTimes(BusySchedule calendar, String person) {
+    RangeBuffer buffer = new RangeBuffer();
+    calendar.collectBusyTimes(AttendeeRegistry.shared().lookup(person), TimeRange.START_OF_DAY,
+        TimeRange.END_OF_DAY + 1, buffer);
+
+    List<TimeRange> times = new ArrayList<>();
+    for (int i = 0; i < buffer.size(); i++) {
+      times.add(TimeRange.fromStartEnd(buffer.start(i), buffer.end(i), false));
+    }
+    return times;
+  }
+}
@@ -14,6 +14,7 @@
 
 package com.google.sps;
 
+import com.google.gson.Gson;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -44,4 +45,31 @@ public final class MeetingRequestTest {
     int expected = 0;
     Assert.assertEquals(expected, actual);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void optionalAttendeesWeighOneByDefault() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C, 5);
+
+    Assert.assertEquals(1, request.getOptionalAttendeeWeight(PERSON_B));
+    Assert.assertEquals(5, request.getOptionalAttendeeWeight(PERSON_C));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void weightMustBePositive() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_B, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void weightReadFromJsonMustBePositive() {
+    // Gson fills in the weights without going through addOptionalAttendee, so they are checked when
+    // the request is queried.
+    MeetingRequest request = new Gson().fromJson("{\"attendees\":[\"Person A\"],"
+        + "\"optional_attendees\":[\"Person B\"],\"optional_attendee_weights\":{\"Person B\":-3},"
+        + "\"duration\":60}", MeetingRequest.class);
+
+    new FindMeetingQuery().query(Collections.<Event>emptyList(), request);
+  }
+}
@@ -0,0 +1,88 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final Collection<TimeRange> ANSWER = Arrays.asList(TimeRange.fromStartDuration(60, 30));
+
+  @Test
+  public void attendeeOrderDoesNotMatter() {
+    QueryCache cache = new QueryCache(10);
+    cache.put(new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 30), 1, ANSWER);
+
+    Assert.assertEquals(ANSWER, cache.get(new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A), 30), 1));
+    Assert.assertNull(cache.get(new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 60), 1));
+    Assert.assertEquals(1, cache.getHitCount());
+    Assert.assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void optionalWeightsAreAPartOfTheKey() {
+    MeetingRequest light = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    light.addOptionalAttendee(PERSON_C);
+    MeetingRequest heavy = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    heavy.addOptionalAttendee(PERSON_C, 2);
+    QueryCache cache = new QueryCache(10);
+    cache.put(light, 1, ANSWER);
+
+    Assert.assertNull(cache.get(heavy, 1));
+  }
+
+  @Test
+  public void calendarChangesDropOldAnswers() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    MeetingRequest other = new MeetingRequest(Arrays.asList(PERSON_B), 30);
+    QueryCache cache = new QueryCache(10);
+    cache.put(request, 1, ANSWER);
+    cache.put(other, 2, ANSWER);
+
+    Assert.assertNull(cache.get(request, 1));
+    Assert.assertEquals(1, cache.size());
+    Assert.assertEquals(1, cache.getEvictionCount());
+
+    // An answer computed against an old calendar is never kept.
+    cache.put(request, 1, ANSWER);
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void leastRecentlyUsedAnswerIsEvicted() {
+    MeetingRequest first = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(PERSON_B), 30);
+    MeetingRequest third = new MeetingRequest(Arrays.asList(PERSON_C), 30);
+    QueryCache cache = new QueryCache(2);
+    cache.put(first, 1, ANSWER);
+    cache.put(second, 1, ANSWER);
+    cache.get(first, 1);
+    cache.put(third, 1, ANSWER);
+
+    Assert.assertNotNull(cache.get(first, 1));
+    Assert.assertNull(cache.get(second, 1));
+    Assert.assertEquals(1, cache.getEvictionCount());
+  }
+}
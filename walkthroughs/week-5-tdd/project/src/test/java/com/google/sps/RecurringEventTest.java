@@ -0,0 +1,120 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurringEventTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  // Standups from 9:00 to 9:15 every week, starting on the first day of 2020.
+  private static final int FIRST_DAY = 18262;
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final TimeRange FIRST_STANDUP =
+      TimeRange.fromStartDuration(TimeRange.startOfEpochDay(FIRST_DAY) + TIME_0900AM, 15);
+
+  private static final RecurringEvent STANDUP =
+      RecurringEvent.weekly("Standup", FIRST_STANDUP, 52, Arrays.asList(PERSON_A));
+
+  @Test
+  public void occurrencesAreFoundWithinTheWindow() {
+    TimeRange thirdWeek = TimeRange.fromStartDuration(TimeRange.startOfEpochDay(FIRST_DAY + 14),
+        7 * TimeRange.MINUTES_PER_DAY);
+
+    List<TimeRange> actual = toList(STANDUP.occurrences(thirdWeek));
+    List<TimeRange> expected = Arrays.asList(STANDUP.getOccurrence(2));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(TimeRange.fromStartDuration(FIRST_STANDUP.start() + 2 * RecurringEvent.WEEK, 15),
+        STANDUP.getOccurrence(2));
+  }
+
+  @Test
+  public void occurrenceOverlappingWindowStartIsIncluded() {
+    TimeRange window = TimeRange.fromStartDuration(FIRST_STANDUP.start() + RecurringEvent.WEEK + 5, 60);
+
+    List<TimeRange> actual = toList(STANDUP.occurrences(window));
+
+    Assert.assertEquals(Arrays.asList(STANDUP.getOccurrence(1)), actual);
+  }
+
+  @Test
+  public void noOccurrencesOutsideTheSeries() {
+    TimeRange before = TimeRange.fromStartDuration(TimeRange.startOfEpochDay(FIRST_DAY - 7), 60);
+    TimeRange after = TimeRange.fromStartDuration(TimeRange.startOfEpochDay(FIRST_DAY + 7 * 52), 60);
+
+    Assert.assertFalse(STANDUP.occurrences(before).hasNext());
+    Assert.assertFalse(STANDUP.occurrences(after).hasNext());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void periodMustBePositive() {
+    new RecurringEvent("Standup", FIRST_STANDUP, 0, 10, Arrays.asList(PERSON_A));
+  }
+
+  @Test
+  public void scheduleMergesOccurrencesWithOneOffEvents() {
+    // A one-off event from 9:10 to 9:30 runs into the standup, and the standup of the next week
+    // stands alone.
+    int day = TimeRange.startOfEpochDay(FIRST_DAY + 7);
+    Collection<Event> events = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartDuration(day + TIME_0900AM + 10, 20), Arrays.asList(PERSON_A)));
+    RecurringSchedule schedule = RecurringSchedule.of(CalendarIndex.of(events), Arrays.asList(STANDUP));
+    int person = AttendeeRegistry.shared().lookup(PERSON_A);
+
+    RangeBuffer busy = new RangeBuffer();
+    schedule.collectBusyTimes(person, day, day + 8 * TimeRange.MINUTES_PER_DAY, busy);
+
+    Assert.assertEquals(2, busy.size());
+    Assert.assertEquals(day + TIME_0900AM, busy.start(0));
+    Assert.assertEquals(day + TIME_0900AM + 30, busy.end(0));
+    Assert.assertEquals(day + RecurringEvent.WEEK + TIME_0900AM, busy.start(1));
+    Assert.assertEquals(day + RecurringEvent.WEEK + TIME_0900AM + 15, busy.end(1));
+  }
+
+  @Test
+  public void queryWorksAroundStandups() {
+    Horizon morning = Horizon.ofDays(FIRST_DAY + 21, 1, TIME_0900AM, TimeRange.getTimeInMinutes(10, 0));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 30);
+
+    Collection<TimeRange> actual =
+        new FindMeetingQuery().query(new ArrayList<Event>(), Arrays.asList(STANDUP), request, morning);
+    int day = TimeRange.startOfEpochDay(FIRST_DAY + 21);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(day + TIME_0900AM + 15, day + TIME_0900AM + 60, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  private static List<TimeRange> toList(Iterator<TimeRange> occurrences) {
+    List<TimeRange> list = new ArrayList<>();
+    while (occurrences.hasNext()) {
+      list.add(occurrences.next());
+    }
+    return list;
+  }
+}
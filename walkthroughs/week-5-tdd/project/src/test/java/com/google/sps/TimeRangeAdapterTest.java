@@ -0,0 +1,51 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class TimeRangeAdapterTest {
+  private static final Gson GSON =
+      new GsonBuilder().registerTypeAdapter(TimeRange.class, new TimeRangeAdapter()).create();
+
+  @Test
+  public void writesWhatReflectionWrites() {
+    List<TimeRange> ranges = Arrays.asList(TimeRange.WHOLE_DAY, TimeRange.fromStartDuration(540, 30));
+
+    Assert.assertEquals(new Gson().toJson(ranges), GSON.toJson(ranges));
+  }
+
+  @Test
+  public void readsWhatItWrites() {
+    TimeRange range = TimeRange.fromStartDuration(TimeRange.startOfEpochDay(18262) + 540, 90);
+
+    Assert.assertEquals(range, GSON.fromJson(GSON.toJson(range), TimeRange.class));
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void rangeWithoutDurationIsRejected() {
+    GSON.fromJson("{\"start\":10}", TimeRange.class);
+  }
+}
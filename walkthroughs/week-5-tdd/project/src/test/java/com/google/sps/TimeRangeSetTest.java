@@ -0,0 +1,137 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class TimeRangeSetTest {
+  @Test
+  public void addedRangesAreMerged() {
+    // Added   :   |---|  |---|
+    //               |--|
+    // Ranges  :   |----| |---|
+    TimeRangeSet set = new TimeRangeSet();
+    set.add(TimeRange.fromStartEnd(100, 200, false));
+    set.add(TimeRange.fromStartEnd(300, 400, false));
+    set.add(TimeRange.fromStartEnd(150, 250, false));
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(100, 250, false),
+        TimeRange.fromStartEnd(300, 400, false)), set.getRanges());
+    Assert.assertEquals(TimeRange.fromStartEnd(100, 250, false), set.getRangeContaining(249));
+    Assert.assertNull(set.getRangeContaining(250));
+    Assert.assertTrue(set.overlaps(TimeRange.fromStartEnd(240, 310, false)));
+    Assert.assertFalse(set.contains(TimeRange.fromStartEnd(240, 310, false)));
+  }
+
+  @Test
+  public void firstGapSkipsShortGaps() {
+    // Ranges  : |--|  |--|     |--|
+    // Gaps    :    |--|  |-----|  |---...
+    TimeRangeSet set = new TimeRangeSet();
+    set.add(TimeRange.fromStartEnd(0, 60, false));
+    set.add(TimeRange.fromStartEnd(90, 120, false));
+    set.add(TimeRange.fromStartEnd(240, 300, false));
+
+    Assert.assertEquals(TimeRange.fromStartEnd(60, 90, false), set.firstGap(30));
+    Assert.assertEquals(TimeRange.fromStartEnd(120, 240, false), set.firstGap(31));
+    Assert.assertEquals(TimeRange.fromStartEnd(300, TimeRange.END_OF_DAY, true), set.firstGap(121));
+    Assert.assertNull(set.firstGap(TimeRange.WHOLE_DAY.duration()));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(120, 240, false),
+        TimeRange.fromStartEnd(300, TimeRange.END_OF_DAY, true)), set.getGaps(60));
+  }
+
+  @Test
+  public void intersectionAndSubtraction() {
+    TimeRangeSet first = new TimeRangeSet();
+    first.add(TimeRange.fromStartEnd(100, 300, false));
+    TimeRangeSet second = new TimeRangeSet();
+    second.add(TimeRange.fromStartEnd(200, 400, false));
+
+    TimeRangeSet both = new TimeRangeSet();
+    both.addAll(first);
+    both.retainAll(second);
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(200, 300, false)), both.getRanges());
+
+    first.removeAll(second);
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(100, 200, false)), first.getRanges());
+  }
+
+  @Test
+  public void rangesOutsideTheUniverseAreClipped() {
+    TimeRangeSet set = new TimeRangeSet(TimeRange.fromStartEnd(1000, 2000, false));
+    set.add(TimeRange.fromStartEnd(500, 1100, false));
+    set.add(TimeRange.fromStartEnd(1900, 3000, false));
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(1000, 1100, false),
+        TimeRange.fromStartEnd(1900, 2000, false)), set.getRanges());
+    Assert.assertFalse(set.contains(500));
+    Assert.assertEquals(Collections.emptyList(), set.getGaps(801));
+  }
+
+  @Test
+  public void matchesAMinuteByMinuteModel() {
+    Random random = new Random(42);
+    int size = 500;
+    TimeRangeSet set = new TimeRangeSet(TimeRange.fromStartEnd(0, size, false));
+    boolean[] model = new boolean[size];
+
+    for (int step = 0; step < 500; step++) {
+      int start = random.nextInt(size);
+      int end = Math.min(size, start + random.nextInt(60));
+      boolean cover = random.nextBoolean();
+      if (cover) {
+        set.add(TimeRange.fromStartEnd(start, end, false));
+      } else {
+        set.remove(TimeRange.fromStartEnd(start, end, false));
+      }
+      Arrays.fill(model, start, end, cover);
+
+      Assert.assertEquals(runs(model, true, 1), set.getRanges());
+      int minDuration = 1 + random.nextInt(40);
+      List<TimeRange> gaps = runs(model, false, minDuration);
+      Assert.assertEquals(gaps, set.getGaps(minDuration));
+      Assert.assertEquals(gaps.isEmpty() ? null : gaps.get(0), set.firstGap(minDuration));
+    }
+  }
+
+  private static List<TimeRange> runs(boolean[] model, boolean value, int minDuration) {
+    List<TimeRange> runs = new ArrayList<>();
+    int i = 0;
+    while (i < model.length) {
+      if (model[i] != value) {
+        i++;
+        continue;
+      }
+      int start = i;
+      while (i < model.length && model[i] == value) {
+        i++;
+      }
+      if (i - start >= minDuration) {
+        runs.add(TimeRange.fromStartEnd(start, i, false));
+      }
+    }
+    return runs;
+  }
+}
@@ -0,0 +1,107 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.time.ZoneId;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class WorkingHoursTest {
+  private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  // 2020-01-06, a Monday in winter, and 2020-07-06, a Monday in summer.
+  private static final int WINTER = TimeRange.startOfEpochDay(18267);
+  private static final int SUMMER = TimeRange.startOfEpochDay(18449);
+
+  private static final WorkingHours NINE_TO_FIVE = new WorkingHours(NEW_YORK, TIME_0900AM, TIME_0500PM);
+
+  @Test
+  public void hoursFollowTheZone() {
+    // New York is five hours behind UTC in winter, so work runs from 14:00 to 22:00 UTC.
+    RangeBuffer offHours = new RangeBuffer();
+    NINE_TO_FIVE.collectOffHours(WINTER, WINTER + TimeRange.MINUTES_PER_DAY, offHours);
+
+    Assert.assertEquals(2, offHours.size());
+    Assert.assertEquals(WINTER, offHours.start(0));
+    Assert.assertEquals(WINTER + TimeRange.getTimeInMinutes(14, 0), offHours.end(0));
+    Assert.assertEquals(WINTER + TimeRange.getTimeInMinutes(22, 0), offHours.start(1));
+    Assert.assertEquals(WINTER + TimeRange.MINUTES_PER_DAY, offHours.end(1));
+  }
+
+  @Test
+  public void hoursFollowDaylightSaving() {
+    RangeBuffer offHours = new RangeBuffer();
+    NINE_TO_FIVE.collectOffHours(SUMMER, SUMMER + TimeRange.MINUTES_PER_DAY, offHours);
+
+    Assert.assertEquals(SUMMER + TimeRange.getTimeInMinutes(13, 0), offHours.end(0));
+    Assert.assertEquals(SUMMER + TimeRange.getTimeInMinutes(21, 0), offHours.start(1));
+  }
+
+  @Test
+  public void masksAreCompiledOncePerSpan() {
+    long[] first = NINE_TO_FIVE.offHoursMask(WINTER, WINTER + TimeRange.MINUTES_PER_DAY,
+        AvailabilityBitmap.Granularity.FIFTEEN_MINUTES);
+    long[] second = NINE_TO_FIVE.offHoursMask(WINTER, WINTER + TimeRange.MINUTES_PER_DAY,
+        AvailabilityBitmap.Granularity.FIFTEEN_MINUTES);
+
+    Assert.assertSame(first, second);
+    // 96 quarter-hour slots, of which the 32 from 14:00 to 22:00 are free.
+    Assert.assertEquals(64, Long.bitCount(first[0]) + Long.bitCount(first[1]));
+  }
+
+  @Test
+  public void recentlyUsedSpansStayCompiled() {
+    WorkingHours hours = new WorkingHours(NEW_YORK, TIME_0900AM, TIME_0500PM);
+    RangeBuffer first = hours.offHours(WINTER, WINTER + TimeRange.MINUTES_PER_DAY);
+    // Keep using the first span while a hundred others come and go.
+    for (int day = 1; day <= 100; day++) {
+      Assert.assertSame(first, hours.offHours(WINTER, WINTER + TimeRange.MINUTES_PER_DAY));
+      hours.offHours(WINTER + day * TimeRange.MINUTES_PER_DAY, WINTER + (day + 1) * TimeRange.MINUTES_PER_DAY);
+    }
+    Assert.assertSame(first, hours.offHours(WINTER, WINTER + TimeRange.MINUTES_PER_DAY));
+
+    RangeBuffer expected = new RangeBuffer();
+    hours.collectOffHours(WINTER, WINTER + TimeRange.MINUTES_PER_DAY, expected);
+    Assert.assertEquals(expected.size(), first.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertEquals(expected.start(i), first.start(i));
+      Assert.assertEquals(expected.end(i), first.end(i));
+    }
+  }
+
+  @Test
+  public void directorySharesEqualHours() {
+    WorkingHoursDirectory directory = new WorkingHoursDirectory();
+    directory.set("Person A", new WorkingHours(NEW_YORK, TIME_0900AM, TIME_0500PM));
+    directory.set("Person B", new WorkingHours(NEW_YORK, TIME_0900AM, TIME_0500PM));
+
+    Assert.assertSame(directory.get("Person A"), directory.get("Person B"));
+    directory.remove("Person A");
+    Assert.assertNull(directory.get("Person A"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void hoursMustFallWithinTheDay() {
+    new WorkingHours(NEW_YORK, TIME_0500PM, TIME_0900AM);
+  }
+}
@@ -0,0 +1,178 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class GetEventsServletTest {
+  private final GetEventsServlet servlet = new GetEventsServlet();
+
+  @Test
+  public void gzipIsSentOnlyWhenAccepted() throws IOException {
+    Response plain = get(null, null);
+    Response gzipped = get("deflate, gzip;q=0.5", null);
+    Response refused = get("gzip;q=0", null);
+
+    Assert.assertNull(plain.headers.get("Content-Encoding"));
+    Assert.assertEquals("gzip", gzipped.headers.get("Content-Encoding"));
+    Assert.assertNull(refused.headers.get("Content-Encoding"));
+    Assert.assertArrayEquals(plain.body.toByteArray(), gunzip(gzipped.body.toByteArray()));
+    Assert.assertArrayEquals(plain.body.toByteArray(), refused.body.toByteArray());
+    // Each encoding is a different representation, so it needs its own tag.
+    Assert.assertNotEquals(plain.headers.get("ETag"), gzipped.headers.get("ETag"));
+    Assert.assertEquals("Accept-Encoding", plain.headers.get("Vary"));
+  }
+
+  @Test
+  public void matchingTagsGetNotModified() throws IOException {
+    String etag = get(null, null).headers.get("ETag");
+
+    for (String ifNoneMatch : new String[] {etag, "W/" + etag, "\"other\", " + etag, "*"}) {
+      Response response = get(null, ifNoneMatch);
+      Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.status);
+      Assert.assertEquals(0, response.body.size());
+      Assert.assertEquals(etag, response.headers.get("ETag"));
+    }
+
+    Response stale = get(null, "\"other\"");
+    Assert.assertEquals(HttpServletResponse.SC_OK, stale.status);
+    Assert.assertTrue(stale.body.size() > 0);
+  }
+
+  @Test
+  public void tagChangesOnlyWithTheEvents() throws IOException {
+    String before = get(null, null).headers.get("ETag");
+    Event event = new Event("Servlet test", TimeRange.fromStartDuration(600, 30), Arrays.asList("Person A"));
+
+    Calendars.CALENDAR.addEvent(event);
+    try {
+      Response changed = get(null, before);
+      Assert.assertEquals(HttpServletResponse.SC_OK, changed.status);
+      Assert.assertNotEquals(before, changed.headers.get("ETag"));
+    } finally {
+      Calendars.CALENDAR.removeEvent(event);
+    }
+
+    // The calendar's version moved on, but it holds the same events, so clients can keep their copy.
+    Response restored = get(null, before);
+    Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, restored.status);
+  }
+
+  private Response get(String acceptEncoding, String ifNoneMatch) throws IOException {
+    Map<String, String> headers = new HashMap<>();
+    if (acceptEncoding != null) {
+      headers.put("Accept-Encoding", acceptEncoding);
+    }
+    if (ifNoneMatch != null) {
+      headers.put("If-None-Match", ifNoneMatch);
+    }
+    Response response = new Response();
+    servlet.doGet(request(headers), response.proxy());
+    return response;
+  }
+
+  private static HttpServletRequest request(final Map<String, String> headers) {
+    return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+        new Class<?>[] {HttpServletRequest.class}, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getName().equals("getHeader")) {
+              return headers.get(args[0]);
+            }
+            throw new UnsupportedOperationException(method.getName());
+          }
+        });
+  }
+
+  private static byte[] gunzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      byte[] buffer = new byte[4096];
+      for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+        out.write(buffer, 0, read);
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Records what the servlet sends back.
+   */
+  private static final class Response {
+    final Map<String, String> headers = new HashMap<>();
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    int status = HttpServletResponse.SC_OK;
+
+    HttpServletResponse proxy() {
+      final ServletOutputStream out = new ServletOutputStream() {
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {}
+
+        @Override
+        public void write(int b) {
+          body.write(b);
+        }
+      };
+      return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+          new Class<?>[] {HttpServletResponse.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+              switch (method.getName()) {
+                case "setHeader":
+                  headers.put((String) args[0], (String) args[1]);
+                  return null;
+                case "setStatus":
+                  status = (Integer) args[0];
+                  return null;
+                case "setContentType":
+                case "setContentLength":
+                  return null;
+                case "getOutputStream":
+                  return out;
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            }
+          });
+    }
+  }
+}
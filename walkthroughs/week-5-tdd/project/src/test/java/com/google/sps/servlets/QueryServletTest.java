@@ -0,0 +1,132 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryServletTest {
+  private static final String REQUEST =
+      "{\"attendees\": [\"Person A\"], \"optional_attendees\": [], \"duration\": 30";
+
+  private final QueryServlet servlet = new QueryServlet();
+
+  @Test
+  public void requestsForResourcesAreRejected() throws IOException {
+    Response response = post(REQUEST + ", \"resource_pools\": "
+        + "[{\"name\": \"Rooms\", \"resources\": [{\"name\": \"Room 1\", \"capacity\": 4}]}]}");
+
+    Assert.assertEquals(HttpServletResponse.SC_BAD_REQUEST, response.status);
+    Assert.assertEquals(0, response.body.size());
+  }
+
+  @Test
+  public void requestsWithoutResourcesAreAnswered() throws IOException {
+    Response withoutPools = post(REQUEST + "}");
+    Response emptyPools = post(REQUEST + ", \"resource_pools\": []}");
+
+    Assert.assertEquals(HttpServletResponse.SC_OK, withoutPools.status);
+    Assert.assertTrue(withoutPools.body().startsWith("["));
+    Assert.assertEquals(HttpServletResponse.SC_OK, emptyPools.status);
+    Assert.assertEquals(withoutPools.body(), emptyPools.body());
+  }
+
+  private Response post(String json) throws IOException {
+    Response response = new Response();
+    servlet.doPost(request(json), response.proxy());
+    return response;
+  }
+
+  /** A request sent straight to the servlet, so it is answered on the calling thread. */
+  private static HttpServletRequest request(final String json) {
+    return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+        new Class<?>[] {HttpServletRequest.class}, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+              case "getReader":
+                return new BufferedReader(new StringReader(json));
+              case "isAsyncSupported":
+                return false;
+              default:
+                throw new UnsupportedOperationException(method.getName());
+            }
+          }
+        });
+  }
+
+  /**
+   * Records what the servlet sends back.
+   */
+  private static final class Response {
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    int status = HttpServletResponse.SC_OK;
+
+    String body() {
+      return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    HttpServletResponse proxy() {
+      final ServletOutputStream out = new ServletOutputStream() {
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {}
+
+        @Override
+        public void write(int b) {
+          body.write(b);
+        }
+      };
+      return (HttpServletResponse) Proxy.newProxyInstance(HttpServletResponse.class.getClassLoader(),
+          new Class<?>[] {HttpServletResponse.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+              switch (method.getName()) {
+                case "sendError":
+                  status = (Integer) args[0];
+                  return null;
+                case "setHeader":
+                case "setContentType":
+                  return null;
+                case "getOutputStream":
+                  return out;
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            }
+          });
+    }
+  }
+}
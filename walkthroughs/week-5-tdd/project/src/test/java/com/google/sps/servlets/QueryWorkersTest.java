@@ -0,0 +1,79 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryWorkersTest {
+  @Test
+  public void queriesPastTheQueueLimitAreTurnedAway() throws InterruptedException {
+    QueryWorkers workers = new QueryWorkers(1, 1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch finished = new CountDownLatch(2);
+    Runnable blocked = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        finished.countDown();
+      }
+    };
+
+    // One runs, one waits, and the third has nowhere to go.
+    Assert.assertTrue(workers.submit(blocked));
+    Assert.assertTrue(workers.submit(blocked));
+    Assert.assertFalse(workers.submit(blocked));
+
+    release.countDown();
+    Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals(1, workers.getRejectedCount());
+    Assert.assertEquals(2, workers.getAcceptedCount());
+    workers.shutdown();
+  }
+
+  @Test
+  public void failedQueriesAreCounted() throws InterruptedException {
+    QueryWorkers workers = new QueryWorkers(1, 1);
+    final CountDownLatch finished = new CountDownLatch(1);
+
+    // With one worker, the second query only starts once the first has failed.
+    Assert.assertTrue(workers.submit(new Runnable() {
+      @Override
+      public void run() {
+        throw new IllegalStateException("query failed");
+      }
+    }));
+    Assert.assertTrue(workers.submit(new Runnable() {
+      @Override
+      public void run() {
+        finished.countDown();
+      }
+    }));
+
+    Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals(1, workers.getFailedCount());
+    workers.shutdown();
+  }
+}